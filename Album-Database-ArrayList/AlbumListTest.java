@@ -1,24 +1,29 @@
 // AlbumListTest.java
-// Simple, no-exceptions test of every AlbumList method.
+// Simple, no-exceptions test of every AlbumList method,
+// run on each AlbumList implementation in turn (the expected output repeats).
 // Assumes Album has constructor: Album(String artist, String title).
 
 public class AlbumListTest {
     public static void main(String[] args) {
         // small capacity so add() will also test grow
-        AlbumArrayList list = new AlbumArrayList(2);
+        test("AlbumArrayList", new AlbumArrayList(2));
+        test("IndexedAlbumArrayList", new IndexedAlbumArrayList(2));
+        test("TieredAlbumList", new TieredAlbumList(2));
+    }
 
+    private static void test(String name, AlbumList list) {
         // create a few albums
         Album a = new Album("Taylor Swift", "1989");
         Album b = new Album("Adele", "21");
         Album c = new Album("Kendrick Lamar", "DAMN.");
         Album d = new Album("Lorde", "Melodrama");
 
-        System.out.println("Begin simple tests (no exceptions)");
+        System.out.println("Begin simple tests (no exceptions): " + name);
 
         // add() + size()
         list.add(a);
         list.add(b);
-        list.add(c); // should trigger expand2x inside
+        list.add(c); // should trigger growing inside
         System.out.println("size after add a,b,c: " + list.size()); // expect 3
 
         // get()
@@ -15,8 +15,10 @@ public class ArrayListDB {
 
     public static void main(String[] args) {
 
-        // main "database" in memory 
-        AlbumArrayList inventory = new AlbumArrayList(2);
+        // main "database" in memory, indexed so REMOVE lines in the file do not scan the list
+        // (a plain list if Album has no hashCode() to index by)
+        AlbumList inventory = IndexedAlbumArrayList.canIndex() ? new IndexedAlbumArrayList(2)
+                                                               : new AlbumArrayList(2);
 
         // load from file if filename is given
         if (args.length >= 1) {
@@ -32,7 +34,7 @@ public class ArrayListDB {
 
 
     // runs the user interface (moved from main)
-    private static void runUI(AlbumArrayList inventory) {
+    private static void runUI(AlbumList inventory) {
         Scanner input = new Scanner(System.in);
         boolean running = true;
 
@@ -64,7 +66,7 @@ public class ArrayListDB {
 
 
     // ADD handler 
-    private static void handleAdd(Scanner input, AlbumArrayList inventory) {
+    private static void handleAdd(Scanner input, AlbumList inventory) {
         String line = input.nextLine(); // example: "Michael Jackson - BAD"
         String[] at = line.split(" - ", 2);
 
@@ -78,7 +80,7 @@ public class ArrayListDB {
 
 
     // REMOVE handler 
-    private static void handleRemove(Scanner input, AlbumArrayList inventory) {
+    private static void handleRemove(Scanner input, AlbumList inventory) {
         String s = input.nextLine();
 
         // used regex instead of manual loop (simpler digits check)
@@ -99,7 +101,7 @@ public class ArrayListDB {
 
 
     // LIST just prints everything
-    private static void handleList(AlbumArrayList inventory) {
+    private static void handleList(AlbumList inventory) {
         System.out.println(inventory.size() + " albums");
         for (int i = 0; i < inventory.size(); i++) {
             Album a = inventory.get(i);
@@ -108,8 +110,8 @@ public class ArrayListDB {
     }
 
 
-    // file loading
-    private static void loadFromFile(String fileName, AlbumArrayList inventory) {
+    // file loading (package-private so HistoryReplayTest can replay a file into any AlbumList)
+    static void loadFromFile(String fileName, AlbumList inventory) {
         try (Scanner in = new Scanner(new File(fileName))) {
 
             while (in.hasNextLine()) {
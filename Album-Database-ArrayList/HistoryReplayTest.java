@@ -0,0 +1,117 @@
+// HistoryReplayTest.java
+// Checks IndexedAlbumArrayList against AlbumArrayList, the list it replaces in ArrayListDB.
+// First both lists replay history1.txt and a generated history1.txt-style log of ADD and
+// REMOVE lines through ArrayListDB.loadFromFile; they must end with the same albums in the
+// same order, and the replay times are printed (AlbumArrayList scans the list on every
+// REMOVE, the indexed list does not). Then random add, set, remove and get calls, with
+// plenty of duplicate albums, are made on both lists, comparing results and contents, and
+// albums whose artist and title only differ in where a line break falls must stay apart.
+// Usage: java HistoryReplayTest [lines] [distinct albums]   (default 20000 lines, 2000 albums)
+// The replay timing needs a longer log, e.g. java HistoryReplayTest 1000000 (about 2 minutes,
+// nearly all of it AlbumArrayList)
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+
+public class HistoryReplayTest {
+    public static void main(String[] args) throws IOException {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int distinct = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        AlbumArrayList plain = new AlbumArrayList(2);
+        IndexedAlbumArrayList indexed = new IndexedAlbumArrayList(2);
+        ArrayListDB.loadFromFile("history1.txt", plain);
+        ArrayListDB.loadFromFile("history1.txt", indexed);
+        System.out.println("history1.txt: " + indexed.size() + " albums, same as AlbumArrayList: "
+                           + same(plain, indexed)); // 3, true
+
+        // half ADD, half REMOVE of albums picked at random, so some REMOVEs miss
+        File log = File.createTempFile("history", ".txt");
+        log.deleteOnExit();
+        Random random = new Random(24);
+        try (PrintWriter out = new PrintWriter(log, "UTF-8")) {
+            for (int i = 0; i < lines; i++) {
+                int n = random.nextInt(distinct);
+                out.println((random.nextBoolean() ? "ADD:" : "REMOVE:") + "Artist " + (n % 997) + " - Title " + n);
+            }
+        }
+
+        plain = new AlbumArrayList(2);
+        long start = System.nanoTime();
+        ArrayListDB.loadFromFile(log.getPath(), plain);
+        double plainSeconds = (System.nanoTime() - start) / 1e9;
+
+        indexed = new IndexedAlbumArrayList(2);
+        start = System.nanoTime();
+        ArrayListDB.loadFromFile(log.getPath(), indexed);
+        double indexedSeconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d lines: %d albums, same as AlbumArrayList: %b%n",
+                          lines, indexed.size(), same(plain, indexed)); // true
+        System.out.printf("replay AlbumArrayList %.2f s, IndexedAlbumArrayList %.2f s%n",
+                          plainSeconds, indexedSeconds);
+
+        // random calls of every method on both lists
+        plain = new AlbumArrayList();
+        indexed = new IndexedAlbumArrayList();
+        boolean allSame = true;
+        int calls = 0;
+        for (; calls < 200000 && allSame; calls++) {
+            Album album = new Album("Artist " + random.nextInt(20), "Title " + random.nextInt(20));
+            int op = random.nextInt(10);
+            if (op < 4 || plain.size() == 0) {
+                plain.add(album);
+                indexed.add(album);
+            } else if (op < 7) {
+                Album a = plain.remove(album);
+                Album b = indexed.remove(album);
+                allSame = a == null ? b == null : a.equals(b);
+            } else if (op < 8) {
+                int idx = random.nextInt(plain.size());
+                allSame = plain.remove(idx).equals(indexed.remove(idx));
+            } else if (op < 9) {
+                int idx = random.nextInt(plain.size());
+                plain.set(idx, album);
+                indexed.set(idx, album);
+            } else {
+                int idx = random.nextInt(plain.size());
+                allSame = plain.get(idx).equals(indexed.get(idx));
+            }
+            // comparing reads every position, which squeezes out the indexed list's holes,
+            // so it is done only now and then to let holes from remove(Album) pile up
+            if (calls % 64 == 0) allSame &= same(plain, indexed);
+        }
+        allSame &= same(plain, indexed);
+        System.out.println(calls + " random calls, same results and lists: " + allSame); // 200000, true
+
+        // joined as artist + '\n' + title these two would be one album; Album.equals says they differ
+        plain = new AlbumArrayList();
+        indexed = new IndexedAlbumArrayList();
+        Album first = new Album("Artist\nA", "Title");
+        Album second = new Album("Artist", "A\nTitle");
+        for (Album a : new Album[] {first, second, first}) {
+            plain.add(a);
+            indexed.add(a);
+        }
+        Album removedPlain = plain.remove(new Album("Artist", "A\nTitle"));
+        Album removedIndexed = indexed.remove(new Album("Artist", "A\nTitle"));
+        System.out.println("split artist/title: same removed album " + removedPlain.equals(removedIndexed)
+                           + ", lists " + same(plain, indexed)
+                           + ", second album left " + (indexed.remove(second) != null)); // true, true, false
+
+        System.out.println("Done");
+    }
+
+    /**
+     * @return True if both lists hold equal albums in the same order
+     */
+    private static boolean same(AlbumList a, AlbumList b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).equals(b.get(i))) return false;
+        }
+        return true;
+    }
+}
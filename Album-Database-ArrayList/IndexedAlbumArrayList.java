@@ -0,0 +1,264 @@
+// IndexedAlbumArrayList.java is an AlbumArrayList with a hash index from each album to the
+// positions holding it, so remove(Album) does not scan the list
+//
+// remove(Album) looks up the first position of the album and leaves a hole there instead of
+// shifting the rest of the array. Holes are squeezed out (and the index renumbered) in one O(n)
+// pass when an operation needs real positions (get, set, remove(int)) or when holes outnumber
+// albums, so replaying a log of ADD and REMOVE lines costs amortized O(1) per line
+// The index is keyed by the Album itself, so it finds albums by Album's own equals() and needs
+// an Album.hashCode() consistent with it (Album.java is not in this directory); a list cannot be
+// created while Album still has Object's identity hashCode(), which canIndex() checks
+
+import java.util.HashMap;
+
+public class IndexedAlbumArrayList extends AlbumList {
+
+    // Instance variables
+    private int numCopies;
+    private Album[] albums;          // albums[0..used), null for a hole
+    private Positions[] owners;      // positions entry of the album in each slot
+    private int used;
+    private int holes;
+    private final HashMap<Album, Positions> index = new HashMap<>();
+
+    // Constructor 1, with default capacity of 10
+    public IndexedAlbumArrayList() {
+        this(10);
+    }
+
+    // Constructor 2, with specified initial capacity
+    public IndexedAlbumArrayList(int initialCapacity) {
+        if (!canIndex()) {
+            throw new IllegalStateException("Album must override hashCode() to match equals()");
+        }
+        if (initialCapacity < 1){
+            initialCapacity = 1;
+        }
+        this.albums = new Album[initialCapacity];
+        this.owners = new Positions[initialCapacity];
+        this.numItems = 0;
+        this.numCopies = 0;
+    }
+
+    /**
+     * adds new album to list, O(1) amortized
+     * @param newA the album to add
+     */
+    @Override
+    public void add(Album newA) {
+        if (used == albums.length){
+            if (holes > used / 4) {
+                compact(); // reuse the holes before growing
+            } else {
+                expand2x();
+            }
+        }
+        Positions positions = positionsOf(newA);
+        albums[used] = newA;
+        owners[used] = positions;
+        positions.append(used);
+        used++;
+        numItems++;
+    }
+
+    /**
+     * removes the first album equal to targetA, O(1) amortized
+     * @param targetA the album to remove
+     * @return the album that was removed, or null if it is not in the list
+     */
+    @Override
+    public Album remove(Album targetA) {
+        Positions positions = index.get(targetA);
+        if (positions == null || positions.size == 0){
+            return null; // If album not found
+        }
+
+        int slot = positions.removeFirst();
+        Album removed = albums[slot];
+        albums[slot] = null;
+        owners[slot] = null;
+        holes++;
+        numItems--;
+        if (positions.size == 0) {
+            index.remove(removed);
+        }
+        if (holes > numItems) {
+            compact();
+        }
+        return removed;
+    }
+
+    /**
+     * removes album at certain index from list, O(n): the later albums move down one place
+     * @param idx int for a list
+     * @return the album that was removed
+     */
+    @Override
+    public Album remove(int idx) {
+        checkIndex(idx);
+        compact();
+        Album removed = albums[idx];
+        owners[idx].remove(idx);
+        if (owners[idx].size == 0) {
+            index.remove(removed);
+        }
+
+        // leave a hole and let compact() shift and renumber the rest
+        albums[idx] = null;
+        owners[idx] = null;
+        holes++;
+        numItems--;
+        compact();
+        return removed;
+    }
+
+    /**
+     * gets certain value from the list at specific index
+     * O(1), after one O(n) compact() if albums were removed by value since the last call
+     * @param idx int of position in list
+     * @return value from certain position of the list
+     */
+    @Override
+    public Album get(int idx) {
+        checkIndex(idx);
+        compact();
+        return albums[idx];
+    }
+
+    /**
+     * replaces album with index that is given, moving its index entry to the new album
+     * @param idx int position of the list
+     * @param newA the replacement value given (new value)
+     */
+    @Override
+    public void set(int idx, Album newA) {
+        checkIndex(idx);
+        compact();
+        Positions old = owners[idx];
+        old.remove(idx);
+        if (old.size == 0) {
+            index.remove(albums[idx]);
+        }
+
+        Positions positions = positionsOf(newA);
+        positions.insert(idx);
+        albums[idx] = newA;
+        owners[idx] = positions;
+    }
+
+    // Number of times an album has been copied to grow or compact the array
+    public int getNumCopies() {
+        return numCopies;
+    }
+
+    // Helper methods
+
+    // Method to expand both arrays by 2x when they are full
+    private void expand2x(){
+        Album[] biggerAlbums = new Album[albums.length * 2];
+        Positions[] biggerOwners = new Positions[albums.length * 2];
+        System.arraycopy(albums, 0, biggerAlbums, 0, used);
+        System.arraycopy(owners, 0, biggerOwners, 0, used);
+        numCopies += used;
+        albums = biggerAlbums;
+        owners = biggerOwners;
+    }
+
+    // Squeezes out the holes and renumbers every index entry, O(n); does nothing without holes
+    private void compact() {
+        if (holes == 0) {
+            return;
+        }
+        for (int i = 0; i < used; i++) {
+            if (owners[i] != null) owners[i].size = 0;
+        }
+
+        int n = 0;
+        for (int i = 0; i < used; i++) {
+            if (albums[i] != null) {
+                albums[n] = albums[i];
+                owners[n] = owners[i];
+                owners[n].append(n);
+                n++;
+            }
+        }
+        for (int i = n; i < used; i++) {
+            albums[i] = null;
+            owners[i] = null;
+        }
+        numCopies += n;
+        used = n;
+        holes = 0;
+    }
+
+    // The index entry of an album, created empty if the album is not in the list yet
+    private Positions positionsOf(Album album) {
+        Positions positions = index.get(album);
+        if (positions == null) {
+            positions = new Positions();
+            index.put(album, positions);
+        }
+        return positions;
+    }
+
+    // True if Album declares its own hashCode(), which the index relies on
+    public static boolean canIndex() {
+        try {
+            return Album.class.getMethod("hashCode").getDeclaringClass() != Object.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    // Check if index is valid
+    private void checkIndex(int idx) {
+        if (idx < 0 || idx >= numItems){
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    // Slots holding one album (equal copies can be added more than once), in increasing order
+    private static class Positions {
+        int[] slots = new int[1];
+        int first;  // slots[first..first+size) are in use
+        int size;
+
+        // adds a slot after all the others
+        void append(int slot) {
+            if (size == 0) {
+                first = 0;
+            } else if (first + size == slots.length) {
+                int[] bigger = new int[Math.max(2, size * 2)];
+                System.arraycopy(slots, first, bigger, 0, size);
+                slots = bigger;
+                first = 0;
+            }
+            slots[first + size] = slot;
+            size++;
+        }
+
+        int removeFirst() {
+            size--;
+            return slots[first++];
+        }
+
+        // removes a slot from anywhere, O(copies)
+        void remove(int slot) {
+            int i = first;
+            while (slots[i] != slot) i++;
+            System.arraycopy(slots, i + 1, slots, i, first + size - i - 1);
+            size--;
+        }
+
+        // adds a slot in order, O(copies)
+        void insert(int slot) {
+            append(slot);
+            int i = first + size - 1;
+            while (i > first && slots[i - 1] > slot) {
+                slots[i] = slots[i - 1];
+                i--;
+            }
+            slots[i] = slot;
+        }
+    }
+}
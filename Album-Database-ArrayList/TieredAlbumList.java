@@ -0,0 +1,203 @@
+// TieredAlbumList.java is a tiered vector of Album objects: an AlbumList stored in blocks of
+// B albums, with B about sqrt(n), so removing from the middle never shifts the whole list
+//
+// Every block is a circular buffer and every block but the last is full, so album i is in block
+// i / B at ring position (offset + i % B) % B: get and set are O(1). remove(int) closes the gap
+// inside one block by shifting the shorter side of it (at most B/2 albums), then each later block
+// hands its first album to the end of the block before it, which for a circular buffer is one
+// move and an offset change. That is O(B + n/B) = O(sqrt n) instead of O(n)
+// add appends to the last block, O(1) amortized. When n outgrows 2B^2 (or shrinks below B^2/8)
+// the albums are copied into blocks of twice (or half) the size
+
+public class TieredAlbumList extends AlbumList {
+
+    private static final int MIN_SHIFT = 1;
+
+    // Instance variables
+    private int numCopies;
+    private Album[][] blocks;
+    private int[] offsets;      // ring position of each block's first album
+    private int shift;          // B = 1 << shift
+    private int mask;           // B - 1
+
+    // Constructor 1, with room for about 16 albums before the first copy
+    public TieredAlbumList() {
+        this(16);
+    }
+
+    // Constructor 2, with block size B about sqrt(initialCapacity)
+    public TieredAlbumList(int initialCapacity) {
+        int s = MIN_SHIFT;
+        while ((1L << (2 * s)) < initialCapacity) {
+            s++;
+        }
+        setBlockSize(s, 1);
+        this.numItems = 0;
+        this.numCopies = 0;
+    }
+
+    /**
+     * adds new album to the end of the list, O(1) amortized
+     * @param newA the album to add
+     */
+    @Override
+    public void add(Album newA) {
+        if (numItems == 2 << (2 * shift)) {
+            rebuild(shift + 1);
+        }
+        int b = numItems >>> shift;
+        if (b == blocks.length) {
+            growBlocks();
+        }
+        if (blocks[b] == null) {
+            blocks[b] = new Album[mask + 1];
+            offsets[b] = 0;
+        }
+        blocks[b][(offsets[b] + (numItems & mask)) & mask] = newA;
+        numItems++;
+    }
+
+    /**
+     * removes the first album equal to targetA, O(n) to find it
+     * @param targetA the album to remove
+     * @return the album that was removed, or null if it is not in the list
+     */
+    @Override
+    public Album remove(Album targetA) {
+        for (int i = 0; i < numItems; i++){
+            if (get(i).equals(targetA)){
+                return remove(i);
+            }
+        }
+        return null; // If album not found
+    }
+
+    /**
+     * removes album at certain index from list, O(sqrt n)
+     * @param idx int for a list
+     * @return the album that was removed
+     */
+    @Override
+    public Album remove(int idx) {
+        checkIndex(idx);
+        int b = idx >>> shift;
+        int r = idx & mask;
+        int last = (numItems - 1) >>> shift;
+        Album[] block = blocks[b];
+        Album removed = block[(offsets[b] + r) & mask];
+
+        // close the gap in block b; the free ring slot ends up after its last album
+        int count = b < last ? mask + 1 : ((numItems - 1) & mask) + 1;
+        if (r < count - 1 - r) {
+            // shift the albums before r one place towards the end, and start the ring one later
+            for (int i = r; i > 0; i--) {
+                block[(offsets[b] + i) & mask] = block[(offsets[b] + i - 1) & mask];
+            }
+            block[offsets[b]] = null;
+            offsets[b] = (offsets[b] + 1) & mask;
+        } else {
+            for (int i = r; i < count - 1; i++) {
+                block[(offsets[b] + i) & mask] = block[(offsets[b] + i + 1) & mask];
+            }
+            block[(offsets[b] + count - 1) & mask] = null;
+        }
+
+        // each later block moves its first album to the end of the block before it
+        for (int c = b + 1; c <= last; c++) {
+            blocks[c - 1][(offsets[c - 1] + mask) & mask] = blocks[c][offsets[c]];
+            blocks[c][offsets[c]] = null;
+            offsets[c] = (offsets[c] + 1) & mask;
+        }
+
+        numItems--;
+        if ((numItems & mask) == 0 && numItems >>> shift == last) {
+            blocks[last] = null; // the last block is now empty
+        }
+        if (shift > MIN_SHIFT && numItems < (1 << (2 * shift)) / 8) {
+            rebuild(shift - 1);
+        }
+        return removed;
+    }
+
+    /**
+     * gets certain value from the list at specific index, O(1)
+     * @param idx int of position in list
+     * @return value from certain position of the list
+     */
+    @Override
+    public Album get(int idx) {
+        checkIndex(idx);
+        int b = idx >>> shift;
+        return blocks[b][(offsets[b] + (idx & mask)) & mask];
+    }
+
+    /**
+     * replaces album with index that is given, O(1)
+     * @param idx int position of the list
+     * @param newA the replacement value given (new value)
+     */
+    @Override
+    public void set(int idx, Album newA) {
+        checkIndex(idx);
+        int b = idx >>> shift;
+        blocks[b][(offsets[b] + (idx & mask)) & mask] = newA;
+    }
+
+    // Number of times an album has been copied into blocks of a new size
+    public int getNumCopies() {
+        return numCopies;
+    }
+
+    // Albums per block
+    public int getBlockSize() {
+        return mask + 1;
+    }
+
+    // Helper methods
+
+    private void setBlockSize(int newShift, int blockCount) {
+        shift = newShift;
+        mask = (1 << newShift) - 1;
+        blocks = new Album[Math.max(1, blockCount)][];
+        offsets = new int[blocks.length];
+    }
+
+    // Copies every album, in order, into blocks of 2^newShift albums, O(n)
+    private void rebuild(int newShift) {
+        Album[][] oldBlocks = blocks;
+        int[] oldOffsets = offsets;
+        int oldShift = shift;
+        int oldMask = mask;
+        int n = numItems;
+
+        int newSize = 1 << newShift;
+        setBlockSize(newShift, 2 * ((n + newSize - 1) / newSize));
+        for (int i = 0; i < n; i++) {
+            int b = i >>> oldShift;
+            Album album = oldBlocks[b][(oldOffsets[b] + (i & oldMask)) & oldMask];
+            int nb = i >>> shift;
+            if (blocks[nb] == null) {
+                blocks[nb] = new Album[newSize];
+            }
+            blocks[nb][i & mask] = album;
+        }
+        numCopies += n;
+    }
+
+    // Doubles the array of blocks (the blocks themselves are not copied)
+    private void growBlocks() {
+        Album[][] moreBlocks = new Album[blocks.length * 2][];
+        int[] moreOffsets = new int[blocks.length * 2];
+        System.arraycopy(blocks, 0, moreBlocks, 0, blocks.length);
+        System.arraycopy(offsets, 0, moreOffsets, 0, blocks.length);
+        blocks = moreBlocks;
+        offsets = moreOffsets;
+    }
+
+    // Check if index is valid
+    private void checkIndex(int idx) {
+        if (idx < 0 || idx >= numItems){
+            throw new IndexOutOfBoundsException();
+        }
+    }
+}
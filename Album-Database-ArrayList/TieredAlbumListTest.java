@@ -0,0 +1,107 @@
+// TieredAlbumListTest.java
+// Makes the same random add, set, remove and get calls on a TieredAlbumList and an
+// AlbumArrayList while the list grows to 20000 albums and shrinks back to empty (so blocks
+// change size both ways) and checks the results and contents agree.
+// Then times remove(int) at random indices, and get(), on lists of growing size: per call,
+// AlbumArrayList's remove should grow with n and TieredAlbumList's about with sqrt(n).
+// Usage: java TieredAlbumListTest
+
+import java.util.Random;
+
+public class TieredAlbumListTest {
+    public static void main(String[] args) {
+        Random random = new Random(25);
+        AlbumArrayList plain = new AlbumArrayList();
+        TieredAlbumList tiered = new TieredAlbumList();
+        boolean allSame = true;
+        int largestBlock = tiered.getBlockSize();
+        int calls = 0;
+
+        // grow phase adds more than it removes, shrink phase the other way round
+        for (int phase = 0; phase < 2 && allSame; phase++) {
+            int addPercent = phase == 0 ? 60 : 15;
+            while (allSame && (phase == 0 ? plain.size() < 20000 : plain.size() > 0)) {
+                Album album = new Album("Artist " + random.nextInt(50), "Title " + random.nextInt(50));
+                int op = random.nextInt(100);
+                if (op < addPercent || plain.size() == 0) {
+                    plain.add(album);
+                    tiered.add(album);
+                } else if (op < addPercent + 20) {
+                    int idx = random.nextInt(plain.size());
+                    allSame = plain.remove(idx).equals(tiered.remove(idx));
+                } else if (op < addPercent + 25) {
+                    Album a = plain.remove(album);
+                    Album b = tiered.remove(album);
+                    allSame = a == null ? b == null : a.equals(b);
+                } else if (op < addPercent + 30) {
+                    int idx = random.nextInt(plain.size());
+                    plain.set(idx, album);
+                    tiered.set(idx, album);
+                } else {
+                    int idx = random.nextInt(plain.size());
+                    allSame = plain.get(idx).equals(tiered.get(idx));
+                }
+                largestBlock = Math.max(largestBlock, tiered.getBlockSize());
+                if (++calls % 997 == 0) allSame &= same(plain, tiered);
+            }
+        }
+        allSame &= same(plain, tiered);
+        System.out.println(calls + " random calls, same results and lists: " + allSame
+                           + ", block size up to " + largestBlock + ", back to " + tiered.getBlockSize()); // true, 128, 2
+
+        // one untimed round first so the timed ones run compiled code
+        removeNanos(new AlbumArrayList(), 10000);
+        removeNanos(new TieredAlbumList(), 10000);
+        getNanos(100000);
+
+        System.out.printf("%10s %22s %22s %12s%n", "albums", "AlbumArrayList ns/rm", "TieredAlbumList ns/rm",
+                          "tiered get");
+        for (int n = 10000; n <= 1000000; n *= 10) {
+            double plainNanos = removeNanos(new AlbumArrayList(), n);
+            double tieredNanos = removeNanos(new TieredAlbumList(), n);
+            System.out.printf("%10d %22.1f %22.1f %12.1f%n", n, plainNanos, tieredNanos, getNanos(n));
+        }
+        System.out.println("Done");
+    }
+
+    /**
+     * Fills list with n albums, then removes 1000 at random indices.
+     * @return ns per remove, best of five runs
+     */
+    private static double removeNanos(AlbumList list, int n) {
+        double best = Double.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            AlbumList fresh = run == 0 ? list : list instanceof TieredAlbumList ? new TieredAlbumList()
+                                                                                : new AlbumArrayList();
+            for (int i = 0; i < n; i++) fresh.add(new Album("Artist " + i, "Title " + i));
+            Random random = new Random(run);
+            long start = System.nanoTime();
+            for (int i = 0; i < 1000; i++) fresh.remove(random.nextInt(fresh.size()));
+            best = Math.min(best, (System.nanoTime() - start) / 1000.0);
+        }
+        return best;
+    }
+
+    private static double getNanos(int n) {
+        TieredAlbumList list = new TieredAlbumList();
+        for (int i = 0; i < n; i++) list.add(new Album("Artist " + i, "Title " + i));
+        Random random = new Random(n);
+        int hits = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            if (list.get(random.nextInt(n)) != null) hits++;
+        }
+        return (System.nanoTime() - start) / (double) Math.max(1, hits);
+    }
+
+    /**
+     * @return True if both lists hold equal albums in the same order
+     */
+    private static boolean same(AlbumList a, AlbumList b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).equals(b.get(i))) return false;
+        }
+        return true;
+    }
+}
@@ -3,6 +3,11 @@
  * any concrete implementation of a HashMap will need
  * to provide.
  *
+ * K and V are the key and value types. The counting methods (increment,
+ * addAll, cursor counts) are for maps with Integer values; IntCountHashMap
+ * and LongCountHashMap store their counts as primitives and add unboxed
+ * accessors on top.
+ *
  * Abstract methods:
  *    put
  *    get
@@ -12,15 +17,31 @@
  * Concrete methods:
  *    size
  *    isEmpty
- *    hash
+ *    increment (key or char range), addAll
+ *    find by char range, remove (optional)
+ *    hash (through a HashStrategy)
+ *    bucketLengthHistogram
+ *    enableStats / getStats
+ *    cursor / iterator / spliterator (over the live table)
  */
 
-public abstract class AbstractHashMap {
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+public abstract class AbstractHashMap<K, V> implements Iterable<Entry<K, V>> {
    protected double maxLoad;
     
     protected int numKeys;
     protected int capacity;
 
+    protected HashStrategy hashStrategy = HashStrategy.MIXED;
+
+    // null unless enableStats() was called, so disabled stats cost one null check
+    protected HashMapStats stats;
+
     /**
      * Initializes properties of a HashMap
      *
@@ -45,7 +66,7 @@ public abstract class AbstractHashMap {
      * @param key
      * @param value
      */
-    public abstract void put(Object key, Object value);
+    public abstract void put(K key, V value);
 
     /**
      * @param key
@@ -53,7 +74,40 @@ public abstract class AbstractHashMap {
      * @return value assoicated with key or null if key
      *         not in the HashMap
      */
-    public abstract Object find(Object key);
+    public abstract V find(Object key);
+
+    /**
+     * Same as find(key) for the String held in chars[offset..offset+length).
+     * This default allocates the String.
+     */
+    public V find(char[] chars, int offset, int length)
+    {
+	return find(new String(chars, offset, length));
+    }
+
+    /**
+     * Removes key and its value. Optional: this default throws.
+     *
+     * @return the value that was stored for key, or null if none
+     */
+    public V remove(Object key)
+    {
+	throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support remove");
+    }
+
+    /**
+     * Adds every (key, Integer count) of other to this map's counts,
+     * e.g. to merge per-thread maps.
+     *
+     * @param other
+     */
+    public void addAll(AbstractHashMap<? extends K, ?> other)
+    {
+	EntryCursor<? extends K, ?> e = other.cursor();
+	while (e.next()) {
+	    increment(e.key(), e.count());
+	}
+    }
 
 
     /**
@@ -69,12 +123,57 @@ public abstract class AbstractHashMap {
     {
 	return numKeys;
     }
-    
+
+    /**
+     * @return the number of slots or buckets the map has room for
+     */
+    public int getCapacity()
+    {
+	return capacity;
+    }
+
     public boolean isEmpty()
     {
 	return size() == 0;
     }
 
+    /**
+     * Same as increment(key, delta) for the String held in
+     * chars[offset..offset+length), e.g. a tokenizer's word buffer.
+     *
+     * This default allocates the String; implementations that cache
+     * hash codes can probe with the chars and only allocate the String
+     * when the word is new. Only for maps keyed by String.
+     *
+     * @return the updated count
+     */
+    @SuppressWarnings("unchecked")
+    public int increment(char[] chars, int offset, int length, int delta)
+    {
+	return increment((K) new String(chars, offset, length), delta);
+    }
+
+    /**
+     * Adds delta to the Integer count stored for key. A missing key
+     * counts as 0, so the first increment inserts it with value delta.
+     *
+     * This default does a find followed by a put (two lookups);
+     * implementations should override it with a single-probe version.
+     *
+     * @param key
+     * @param delta amount to add
+     *
+     * @return the updated count
+     */
+    @SuppressWarnings("unchecked")
+    public int increment(K key, int delta)
+    {
+	V old = find(key);
+	int count = (old == null ? 0 : (Integer) old) + delta;
+	put(key, (V) Integer.valueOf(count));
+	return count;
+    }
+
 
     /**
      * @param key
@@ -91,7 +190,80 @@ public abstract class AbstractHashMap {
      * @return A flat (1D) array of Entries in this hashmap
      *
      */
-    public abstract Entry[] getEntries();
+    public abstract Entry<K, V>[] getEntries();
+
+    /**
+     * A cursor over every entry, reading the map in place (see EntryCursor).
+     * This default walks a getEntries() copy; maps with a table override
+     * slotCount() and cursor(from, to) so nothing is copied.
+     *
+     * @return a cursor positioned before the first entry
+     */
+    public EntryCursor<K, V> cursor()
+    {
+	int slots = slotCount();
+	return slots > 0 ? cursor(0, slots) : EntryCursor.over(getEntries());
+    }
+
+    /**
+     * @return the number of table slots cursor(from, to) ranges over,
+     *         or 0 if the map has no table to hand out in ranges
+     */
+    protected int slotCount()
+    {
+	return 0;
+    }
+
+    /**
+     * @return a cursor over the entries stored in slots [fromSlot, toSlot)
+     */
+    protected EntryCursor<K, V> cursor(int fromSlot, int toSlot)
+    {
+	throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Iterates over the entries through cursor(), so the same rules apply:
+     * the map must not be changed while iterating.
+     */
+    @Override
+    public Iterator<Entry<K, V>> iterator()
+    {
+	EntryCursor<K, V> cursor = cursor();
+	return new Iterator<Entry<K, V>>() {
+	    private boolean ready;
+	    private boolean more;
+
+	    public boolean hasNext() {
+		if (!ready) {
+		    more = cursor.next();
+		    ready = true;
+		}
+		return more;
+	    }
+
+	    public Entry<K, V> next() {
+		if (!hasNext()) throw new NoSuchElementException();
+		ready = false;
+		return cursor.entry();
+	    }
+	};
+    }
+
+    /**
+     * Splits by ranges of table slots, so a parallel stream over the map
+     * (StreamSupport.stream(map.spliterator(), true)) gives each thread
+     * its own part of the table. Maps without slots split a getEntries() copy.
+     */
+    @Override
+    public Spliterator<Entry<K, V>> spliterator()
+    {
+	int slots = slotCount();
+	if (slots == 0) {
+	    return Spliterators.spliterator(getEntries(), Spliterator.DISTINCT | Spliterator.NONNULL);
+	}
+	return new SlotSpliterator<>(this, 0, slots);
+    }
 
     /**
      * @param key
@@ -101,7 +273,142 @@ public abstract class AbstractHashMap {
      */
     protected int hash(Object key)
     {
-	return (key.hashCode() % capacity + capacity) % capacity;
+	return hash(key, capacity);
+    }
+
+    /**
+     * Same as hash(key), for a table of the given size
+     * (used while two tables are live during a resize)
+     */
+    protected int hash(Object key, int tableSize)
+    {
+	return indexFor(key.hashCode(), tableSize);
+    }
+
+    /**
+     * @param hashCode a key's (possibly cached) hashCode()
+     *
+     * @return the index position for that hash code in a table of tableSize
+     */
+    protected int indexFor(int hashCode, int tableSize)
+    {
+	return hashStrategy.index(hashCode, tableSize);
+    }
+
+    /**
+     * Chooses how hash codes become indices (HashStrategy.MIXED by default).
+     * Only allowed while the map is empty, since every index would change.
+     *
+     * @param strategy
+     */
+    public void setHashStrategy(HashStrategy strategy)
+    {
+	if (!isEmpty()) {
+	    throw new IllegalStateException("Hash strategy can only be changed on an empty map");
+	}
+	hashStrategy = strategy;
+    }
+
+    /**
+     * Starts recording operation counters (see HashMapStats).
+     */
+    public void enableStats()
+    {
+	if (stats == null) {
+	    stats = new HashMapStats();
+	}
+    }
+
+    /**
+     * @return the recorded counters, or null if stats were never enabled
+     */
+    public HashMapStats getStats()
+    {
+	return stats;
+    }
+
+    /**
+     * @return histogram[len] = number of buckets holding len keys,
+     *         or null if this map does not use buckets
+     */
+    public int[] bucketLengthHistogram()
+    {
+	return null;
+    }
+
+    /**
+     * @return the hashCode() the String of chars[offset..offset+length)
+     *         would have, without creating that String
+     */
+    protected static int hashChars(char[] chars, int offset, int length)
+    {
+	int h = 0;
+	for (int i = offset; i < offset + length; i++) {
+	    h = 31 * h + chars[i];
+	}
+	return h;
+    }
+
+    /**
+     * @return True if key is a String equal to chars[offset..offset+length)
+     */
+    protected static boolean sameChars(Object key, char[] chars, int offset, int length)
+    {
+	if (!(key instanceof String)) return false;
+
+	String s = (String) key;
+	if (s.length() != length) return false;
+	for (int i = 0; i < length; i++) {
+	    if (s.charAt(i) != chars[offset + i]) return false;
+	}
+	return true;
+    }
+
+    /**
+     * Spliterator over the slots [from, to) of a map's table.
+     */
+    private static class SlotSpliterator<K, V> implements Spliterator<Entry<K, V>>
+    {
+	private final AbstractHashMap<K, V> map;
+	private int from;
+	private final int to;
+	private EntryCursor<K, V> cursor; // created on the first advance
+
+	SlotSpliterator(AbstractHashMap<K, V> map, int from, int to)
+	{
+	    this.map = map;
+	    this.from = from;
+	    this.to = to;
+	}
+
+	public boolean tryAdvance(Consumer<? super Entry<K, V>> action)
+	{
+	    if (cursor == null) cursor = map.cursor(from, to);
+	    if (!cursor.next()) return false;
+	    action.accept(cursor.entry());
+	    return true;
+	}
+
+	public Spliterator<Entry<K, V>> trySplit()
+	{
+	    if (cursor != null || to - from < 2) return null;
+
+	    int mid = (from + to) >>> 1;
+	    SlotSpliterator<K, V> front = new SlotSpliterator<>(map, from, mid);
+	    from = mid;
+	    return front;
+	}
+
+	// assumes the entries are spread evenly over the slots
+	public long estimateSize()
+	{
+	    return (long) map.size() * (to - from) / map.slotCount();
+	}
+
+	public int characteristics()
+	{
+	    return Spliterator.DISTINCT | Spliterator.NONNULL;
+	}
     }
 }
     
@@ -0,0 +1,181 @@
+/**
+ * ApproximateCounter.java
+ * A word-count map in fixed memory, for corpora with too many distinct
+ * words to count exactly.
+ *
+ * Every word goes into a CountMinSketch, which answers find() for any
+ * word with a bounded overcount, and into a SpaceSaving summary, which
+ * keeps the heaviest words; getEntries() and cursor() return those, so
+ * TopK on this map gives an approximate top K.
+ *
+ * Neither part grows with the number of distinct words: memory is set by
+ * epsilon and delta (the sketch) and the number of counters. put() is not
+ * supported, since a sketch can only add.
+ */
+
+public class ApproximateCounter extends AbstractHashMap<String, Integer> {
+
+    public static final double DEFAULT_EPSILON = .0001;
+    public static final double DEFAULT_DELTA = .001;
+    public static final int DEFAULT_COUNTERS = 1000;
+
+    private final CountMinSketch sketch;
+    private final SpaceSaving heavyHitters;
+
+    /**
+     * @param epsilon sketch error per unit of total count
+     * @param delta probability that a sketch estimate misses that bound
+     * @param counters number of heavy-hitter counters
+     */
+    public ApproximateCounter(double epsilon, double delta, int counters) {
+        super(1);
+        sketch = new CountMinSketch(epsilon, delta);
+        heavyHitters = new SpaceSaving(counters);
+        capacity = counters;
+    }
+
+    /**
+     * Parses "epsilon,delta,counters" (each part optional, e.g. ",,5000").
+     * @param params null or empty for the defaults
+     */
+    public static ApproximateCounter fromParams(String params) {
+        double epsilon = DEFAULT_EPSILON;
+        double delta = DEFAULT_DELTA;
+        int counters = DEFAULT_COUNTERS;
+
+        if (params != null && !params.isEmpty()) {
+            String[] parts = params.split(",", -1);
+            if (parts.length > 0 && !parts[0].isEmpty()) epsilon = Double.parseDouble(parts[0]);
+            if (parts.length > 1 && !parts[1].isEmpty()) delta = Double.parseDouble(parts[1]);
+            if (parts.length > 2 && !parts[2].isEmpty()) counters = Integer.parseInt(parts[2]);
+        }
+        return new ApproximateCounter(epsilon, delta, counters);
+    }
+
+    /**
+     * Counts the word in chars[offset..offset+length).
+     * @return its sketch estimate after the update
+     */
+    @Override
+    public int increment(char[] chars, int offset, int length, int delta) {
+        heavyHitters.add(chars, offset, length, delta);
+        numKeys = heavyHitters.size();
+        return sketch.add(hashChars(chars, offset, length), delta);
+    }
+
+    @Override
+    public int increment(String key, int delta) {
+        heavyHitters.add(key, delta);
+        numKeys = heavyHitters.size();
+        return sketch.add(key.hashCode(), delta);
+    }
+
+    /**
+     * Sketches cannot set a count, only add to it.
+     */
+    @Override
+    public void put(String key, Integer value) {
+        throw new UnsupportedOperationException("ApproximateCounter only supports increment");
+    }
+
+    /**
+     * @return Integer sketch estimate (never below the true count), or
+     *         null if the estimate is 0 (the word was certainly never seen)
+     */
+    @Override
+    public Integer find(Object key) {
+        int estimate = sketch.estimate(key.hashCode());
+        return estimate == 0 ? null : estimate;
+    }
+
+    /**
+     * May be true for a word that was never seen (a sketch collision).
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return sketch.estimate(key.hashCode()) > 0;
+    }
+
+    /**
+     * Merges another ApproximateCounter of the same shape: sketches add
+     * counter by counter, heavy-hitter summaries merge with their errors
+     * (see SpaceSaving.addAll), so the error bounds hold for both streams.
+     * Other maps are merged through increment().
+     */
+    @Override
+    public void addAll(AbstractHashMap<? extends String, ?> other) {
+        if (!(other instanceof ApproximateCounter)) {
+            super.addAll(other);
+            return;
+        }
+        ApproximateCounter approx = (ApproximateCounter) other;
+        heavyHitters.addAll(approx.heavyHitters);
+        numKeys = heavyHitters.size();
+        sketch.addAll(approx.sketch);
+    }
+
+    /**
+     * @return the heavy hitters as (word, Integer count) entries; counts
+     *         overestimate by at most heavyHitterError()
+     */
+    @Override
+    public Entry<String, Integer>[] getEntries() {
+        Entry<String, Integer>[] arr = Entry.newArray(heavyHitters.size());
+        EntryCursor<String, Integer> e = heavyHitters.cursor();
+        for (int n = 0; e.next(); n++) {
+            arr[n] = e.entry();
+        }
+        return arr;
+    }
+
+    @Override
+    public EntryCursor<String, Integer> cursor() {
+        return heavyHitters.cursor();
+    }
+
+    /**
+     * Fixed size: nothing to resize.
+     */
+    @Override
+    protected void resize() {
+    }
+
+    /**
+     * @return the largest overcount of a find() with probability 1 - delta
+     */
+    public double sketchErrorBound() {
+        return sketch.errorBound();
+    }
+
+    /**
+     * @return the largest overcount of a heavy hitter's count
+     */
+    public int heavyHitterError() {
+        return heavyHitters.maxError();
+    }
+
+    /**
+     * @return word's heavy-hitter count, or 0 if it holds no counter
+     */
+    public int heavyHitterCount(Object word) {
+        return heavyHitters.count(word);
+    }
+
+    /**
+     * @return how much the heavy-hitter count of word may overestimate
+     */
+    public int heavyHitterError(Object word) {
+        return heavyHitters.error(word);
+    }
+
+    public CountMinSketch sketch() {
+        return sketch;
+    }
+
+    /**
+     * @return the number of heavy-hitter counters
+     */
+    public int counters() {
+        return heavyHitters.capacity();
+    }
+}
@@ -0,0 +1,97 @@
+// ApproximateCounterTest.java
+// Measures ApproximateCounter against exact counts on the bundled books.
+// For each book and sketch size it prints:
+//   - the sketch's worst and mean overcount over every distinct word, and
+//     the share of words within its epsilon * total bound (expect >= 1 - delta);
+//   - how many of the exact top 10 / top 50 words the heavy hitters found,
+//     and their worst count error next to the guaranteed bound;
+//   - for maps merged from 8 chunks (--threads 8), whether every word is
+//     within the merged Space-Saving bounds: a monitored word's true count
+//     is in [count - error, count], an unmonitored one's at most
+//     heavyHitterError().
+// Usage: java ApproximateCounterTest [book.txt ...]
+
+import java.io.File;
+import java.io.IOException;
+
+public class ApproximateCounterTest {
+    public static void main(String[] args) throws IOException {
+        String[] books = args.length > 0 ? args : new String[] {"pg84.txt", "pride_and_prejudice.txt"};
+        String[] configs = {"0.0001,0.001,1000", "0.001,0.01,200", "0.01,0.01,50"};
+
+        for (String book : books) {
+            AbstractHashMap<String, Integer> exact = TextAnalytics.countWords(new File(book), "probe");
+            System.out.println(book + ": " + exact.size() + " distinct words");
+
+            for (String config : configs) {
+                ApproximateCounter approx = (ApproximateCounter) TextAnalytics.countWords(
+                    new File(book), "approx:" + config);
+                CountMinSketch sketch = approx.sketch();
+
+                // sketch error over every distinct word
+                long worst = 0;
+                long sum = 0;
+                int within = 0;
+                boolean under = false;
+                EntryCursor<String, Integer> word = exact.cursor();
+                while (word.next()) {
+                    long over = approx.find(word.key()) - word.count();
+                    if (over < 0) under = true;
+                    worst = Math.max(worst, over);
+                    sum += over;
+                    if (over <= sketch.errorBound()) within++;
+                }
+
+                System.out.printf("  epsilon,delta,counters = %s: sketch %dx%d (%d KB), total %d%n",
+                                  config, sketch.depth(), sketch.width(), sketch.memoryBytes() / 1024,
+                                  sketch.total());
+                System.out.printf("    sketch overcount: worst %d, mean %.2f, bound %.1f, within bound %.4f"
+                                  + " (expect >= %.4f), ever under: %b%n",
+                                  worst, (double) sum / exact.size(), sketch.errorBound(),
+                                  (double) within / exact.size(), 1 - sketch.delta(), under); // false
+
+                for (int k : new int[] {10, 50}) {
+                    Entry<String, Integer>[] truth = TopK.select(exact.cursor(), k);
+                    Entry<String, Integer>[] found = TopK.select(approx.cursor(), k);
+                    int recalled = 0;
+                    long worstTop = 0;
+                    for (Entry<String, Integer> t : truth) {
+                        for (Entry<String, Integer> f : found) {
+                            if (f.key.equals(t.key)) {
+                                recalled++;
+                                worstTop = Math.max(worstTop, f.value - t.value);
+                            }
+                        }
+                    }
+                    System.out.printf("    top %d: %d/%d found, worst count error %d, guaranteed <= %d%n",
+                                      k, recalled, truth.length, worstTop, approx.heavyHitterError());
+                }
+            }
+
+            // heavy hitters merged from chunk summaries keep their bounds
+            for (int counters : new int[] {50, 200, 1000}) {
+                AbstractHashMap<String, Integer> chunked = ParallelWordCounter.count(
+                    new File(book), "probe", HashStrategy.MIXED, 8);
+                ApproximateCounter merged = (ApproximateCounter) ParallelWordCounter.count(
+                    new File(book), "approx:0.001,0.01," + counters, HashStrategy.MIXED, 8);
+                int outside = 0;
+                int monitored = 0;
+                EntryCursor<String, Integer> word = chunked.cursor();
+                while (word.next()) {
+                    int count = merged.heavyHitterCount(word.key());
+                    int error = merged.heavyHitterError(word.key());
+                    if (count > 0) {
+                        monitored++;
+                        if (word.count() > count || word.count() < count - error) outside++;
+                    } else if (word.count() > merged.heavyHitterError()) {
+                        outside++;
+                    }
+                }
+                System.out.printf("  merged from 8 chunks, %d counters: %d monitored, error bound %d,"
+                                  + " words outside their bounds: %d%n",
+                                  counters, monitored, merged.heavyHitterError(), outside); // 0
+            }
+        }
+        System.out.println("Done");
+    }
+}
@@ -0,0 +1,251 @@
+/**
+ * ConcurrentObjectHashMap.java
+ * A thread-safe chaining hash map built from lock-striped segments.
+ *
+ * The key space is split into a fixed number of segments, each an
+ * ObjectHashMap guarded by its own lock, so threads only contend when
+ * their keys land in the same segment. Every operation, including
+ * increment(), is atomic; no external synchronization is needed.
+ */
+
+public class ConcurrentObjectHashMap<K, V> extends AbstractHashMap<K, V> {
+
+    private static final int SEGMENT_BITS = 5;
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+
+    private final ObjectHashMap<K, V>[] segments;
+
+    /**
+     * Constructor for the hash map.
+     * @param maxLoad double, maximum allowed load factor of each segment
+     *                before it resizes.
+     */
+    @SuppressWarnings("unchecked") // a generic array is created as ObjectHashMap<?, ?>[] and cast
+    public ConcurrentObjectHashMap(double maxLoad) {
+        super(maxLoad);
+
+        segments = (ObjectHashMap<K, V>[]) new ObjectHashMap<?, ?>[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new ObjectHashMap<>(maxLoad);
+        }
+    }
+
+    /**
+     * Inserts or updates a key/value pair. Locks one segment.
+     */
+    @Override
+    public void put(K key, V value) {
+        ObjectHashMap<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    /**
+     * Atomically adds delta to the Integer count for key.
+     * @return the updated count
+     */
+    @Override
+    public int increment(K key, int delta) {
+        ObjectHashMap<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.increment(key, delta);
+        }
+    }
+
+    /**
+     * Atomic increment() for the word in chars[offset..offset+length).
+     * The caller's buffer must not change until this returns.
+     */
+    @Override
+    public int increment(char[] chars, int offset, int length, int delta) {
+        ObjectHashMap<K, V> segment = segmentFor(hashChars(chars, offset, length));
+        synchronized (segment) {
+            return segment.increment(chars, offset, length, delta);
+        }
+    }
+
+    @Override
+    public V find(Object key) {
+        ObjectHashMap<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.find(key);
+        }
+    }
+
+    @Override
+    public V find(char[] chars, int offset, int length) {
+        ObjectHashMap<K, V> segment = segmentFor(hashChars(chars, offset, length));
+        synchronized (segment) {
+            return segment.find(chars, offset, length);
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        ObjectHashMap<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.remove(key);
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        ObjectHashMap<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.containsKey(key);
+        }
+    }
+
+    /**
+     * O(S): sums the segment sizes, locking one segment at a time.
+     */
+    @Override
+    public int size() {
+        int total = 0;
+        for (ObjectHashMap<K, V> segment : segments) {
+            synchronized (segment) {
+                total += segment.size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Applies the strategy to every segment (only while the map is empty).
+     */
+    @Override
+    public void setHashStrategy(HashStrategy strategy) {
+        super.setHashStrategy(strategy);
+        for (ObjectHashMap<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.setHashStrategy(strategy);
+            }
+        }
+    }
+
+    /**
+     * Enables stats on every segment; getStats() totals them.
+     */
+    @Override
+    public void enableStats() {
+        for (ObjectHashMap<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.enableStats();
+            }
+        }
+    }
+
+    /**
+     * @return a snapshot of all segments' counters added together,
+     *         or null if stats are not enabled
+     */
+    @Override
+    public HashMapStats getStats() {
+        HashMapStats total = null;
+
+        for (ObjectHashMap<K, V> segment : segments) {
+            synchronized (segment) {
+                if (segment.getStats() == null) return null;
+                if (total == null) total = new HashMapStats();
+                total.add(segment.getStats());
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return the total bucket count of all segments
+     */
+    @Override
+    public int getCapacity() {
+        int total = 0;
+        for (ObjectHashMap<K, V> segment : segments) {
+            synchronized (segment) {
+                total += segment.getCapacity();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Sum of the segments' bucket length histograms.
+     */
+    @Override
+    public int[] bucketLengthHistogram() {
+        int[] total = new int[1];
+
+        for (ObjectHashMap<K, V> segment : segments) {
+            int[] part;
+            synchronized (segment) {
+                part = segment.bucketLengthHistogram();
+            }
+            if (part.length > total.length) {
+                int[] bigger = new int[part.length];
+                System.arraycopy(total, 0, bigger, 0, total.length);
+                total = bigger;
+            }
+            for (int len = 0; len < part.length; len++) {
+                total[len] += part[len];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Segments grow on their own as keys arrive; this grows all of them.
+     */
+    @Override
+    protected void resize() {
+        for (ObjectHashMap<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.resize();
+            }
+        }
+    }
+
+    /**
+     * O(n): Collects all entries, one segment at a time. Entries added to
+     * an already collected segment while this runs are not included.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Entry<K, V>[] getEntries() {
+        Entry<K, V>[][] parts = (Entry<K, V>[][]) new Entry<?, ?>[SEGMENTS][];
+        int total = 0;
+
+        for (int i = 0; i < SEGMENTS; i++) {
+            synchronized (segments[i]) {
+                parts[i] = segments[i].getEntries();
+            }
+            total += parts[i].length;
+        }
+
+        Entry<K, V>[] arr = Entry.newArray(total);
+        int n = 0;
+        for (Entry<K, V>[] part : parts) {
+            System.arraycopy(part, 0, arr, n, part.length);
+            n += part.length;
+        }
+        return arr;
+    }
+
+    // Helper methods
+
+    /**
+     * Picks the segment from the top SEGMENT_BITS of hashCode() times the
+     * golden-ratio constant. Inside a segment the bucket is the low bits of
+     * the segment's HashStrategy index: the MurmurHash3 finalizer of the
+     * same hashCode() for MIXED, the raw low bits for MODULO. Neither is
+     * the top bits of this product, so keys of one segment still spread
+     * over all of its buckets.
+     */
+    private ObjectHashMap<K, V> segmentFor(Object key) {
+        return segmentFor(key.hashCode());
+    }
+
+    private ObjectHashMap<K, V> segmentFor(int hashCode) {
+        int h = hashCode * 0x9E3779B9;
+        return segments[h >>> (32 - SEGMENT_BITS)];
+    }
+}
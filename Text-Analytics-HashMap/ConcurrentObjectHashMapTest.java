@@ -0,0 +1,89 @@
+// ConcurrentObjectHashMapTest.java
+// Stress test: 8 threads count interleaved slices of a book into one
+// shared ConcurrentObjectHashMap; the result must equal a single-threaded
+// ObjectHashMap count of the same words. Half the threads count through
+// increment(String), half through increment(char[], ...) from their own
+// reused word buffer, as the tokenizer does, so both paths are contended.
+// The capacity in the stats is the sum of the segments' bucket counts.
+// Usage: java ConcurrentObjectHashMapTest [book.txt]
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ConcurrentObjectHashMapTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String book = args.length > 0 ? args[0] : "pride_and_prejudice.txt";
+
+        // read the words once so every thread sees the same input
+        List<String> words = new ArrayList<>();
+        WordTokenizer tokens = TextAnalytics.openBook(new File(book));
+        tokens.skipToStart();
+        String word;
+        while ((word = tokens.nextWord()) != null) {
+            words.add(word);
+        }
+        tokens.close();
+
+        ObjectHashMap<String, Integer> expected = new ObjectHashMap<>(.9);
+        for (String w : words) {
+            expected.increment(w, 1);
+        }
+
+        System.out.println("Begin stress test: " + words.size() + " words, "
+                           + THREADS + " threads, " + ROUNDS + " rounds");
+
+        for (int round = 0; round < ROUNDS; round++) {
+            ConcurrentObjectHashMap<String, Integer> shared = new ConcurrentObjectHashMap<>(.9);
+
+            Thread[] workers = new Thread[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                final int first = t;
+                // thread t counts words t, t + THREADS, t + 2*THREADS, ...
+                workers[t] = new Thread(() -> {
+                    char[] buffer = new char[64];
+                    for (int i = first; i < words.size(); i += THREADS) {
+                        String w = words.get(i);
+                        if (first % 2 == 0) {
+                            shared.increment(w, 1);
+                        } else {
+                            // the word sits at offset 1, after a char that must not be read
+                            if (w.length() + 1 > buffer.length) buffer = new char[2 * (w.length() + 1)];
+                            buffer[0] = '#';
+                            w.getChars(0, w.length(), buffer, 1);
+                            shared.increment(buffer, 1, w.length(), 1);
+                        }
+                    }
+                });
+                workers[t].start();
+            }
+            for (Thread w : workers) {
+                w.join();
+            }
+
+            boolean same = shared.size() == expected.size();
+            for (Entry<String, Integer> e : expected.getEntries()) {
+                if (!e.value.equals(shared.find(e.key))) same = false;
+            }
+            System.out.println("round " + round + ": size " + shared.size()
+                               + ", counts match single-threaded: " + same); // expect true
+        }
+
+        ConcurrentObjectHashMap<String, Integer> map = new ConcurrentObjectHashMap<>(.9);
+        int empty = map.getCapacity();
+        map.enableStats();
+        for (String w : words) map.increment(w, 1);
+        String json = map.getStats().toJson(map);
+        System.out.println("capacity: empty " + empty + ", after counting " + map.getCapacity()
+                           + ", in stats: " + json.contains("\"capacity\": " + map.getCapacity() + ",")
+                           + ", holds size at maxLoad: " + (map.size() <= .9 * map.getCapacity()));
+        // expect 512 (32 segments of 16), then true, true
+
+        System.out.println("Done");
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * CorpusIndex.java
+ * An inverted index over a directory of Gutenberg books.
+ *
+ * Every book is counted into its own word map by a worker thread (one
+ * task per file); the per-book maps are then merged in file name order,
+ * which is also docId order, into word -> PostingList. A posting list
+ * holds the word's compressed (docId, count) pairs plus its document
+ * frequency and total count, so those two are one hash lookup away.
+ *
+ * As an AbstractHashMap the index is read-only and maps each word to its
+ * total count over the corpus, so top-K, batch queries, --rank-out and
+ * --stats work on a corpus as they do on a single book.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class CorpusIndex extends AbstractHashMap<String, Integer> {
+
+    // word -> PostingList
+    private final ObjectHashMap<String, PostingList> postings;
+    private final String[] documents;
+
+    private CorpusIndex(ObjectHashMap<String, PostingList> postings, String[] documents) {
+        super(postings.maxLoad);
+        this.postings = postings;
+        this.documents = documents;
+        numKeys = postings.size();
+        capacity = postings.capacity;
+    }
+
+    /**
+     * Counts every *.txt book in dir and builds the index.
+     * Files without a Gutenberg START marker are skipped (reported on stderr).
+     * @param mapKind map implementation for the per-book maps
+     *                (see TextAnalytics.newWordMap; not "approx")
+     * @param hashing hash strategy for those maps
+     * @param threads number of worker threads
+     * @throws IOException if dir holds no books or a book cannot be read
+     */
+    public static CorpusIndex build(File dir, String mapKind, HashStrategy hashing, int threads)
+        throws IOException {
+        if (mapKind.startsWith("approx")) {
+            throw new IllegalArgumentException("A corpus index needs exact per-book counts, not " + mapKind);
+        }
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".txt"));
+        if (files == null || files.length == 0) {
+            throw new IOException("No .txt files in " + dir);
+        }
+        Arrays.sort(files);
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, files.length));
+        try {
+            List<Future<AbstractHashMap<String, Integer>>> counts = new ArrayList<>();
+            for (File file : files) {
+                counts.add(pool.submit(() -> TextAnalytics.countWords(file, mapKind, hashing)));
+            }
+
+            // O(distinct words of every book): each book's map is read once,
+            // in docId order, and dropped as soon as it is merged
+            ObjectHashMap<String, PostingList> postings = new ObjectHashMap<>(.9);
+            postings.setHashStrategy(hashing);
+            List<String> documents = new ArrayList<>();
+
+            for (int i = 0; i < files.length; i++) {
+                AbstractHashMap<String, Integer> words = counts.get(i).get();
+                counts.set(i, null);
+                if (words == null) {
+                    System.err.println("Skipping " + files[i].getName() + ": no Project Gutenberg START marker");
+                    continue;
+                }
+
+                int docId = documents.size();
+                documents.add(files[i].getName());
+                EntryCursor<String, Integer> word = words.cursor();
+                while (word.next()) {
+                    postings.findOrPut(word.key(), PostingList::new).add(docId, word.count());
+                }
+            }
+
+            EntryCursor<String, PostingList> list = postings.cursor();
+            while (list.next()) {
+                list.value().trim();
+            }
+            return new CorpusIndex(postings, documents.toArray(new String[0]));
+        } catch (InterruptedException err) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while indexing " + dir, err);
+        } catch (ExecutionException err) {
+            if (err.getCause() instanceof IOException) {
+                throw (IOException) err.getCause();
+            }
+            throw new IOException("Indexing failed for " + dir, err.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * O(1): one hash lookup, nothing decoded.
+     * @return the number of documents word occurs in (0 if none)
+     */
+    public int documentFrequency(Object word) {
+        PostingList list = postings.find(word);
+        return list == null ? 0 : list.documentFrequency();
+    }
+
+    /**
+     * @return the word's postings, or null if it occurs nowhere
+     */
+    public PostingList postings(Object word) {
+        return postings.find(word);
+    }
+
+    /**
+     * @return the number of documents indexed
+     */
+    public int documentCount() {
+        return documents.length;
+    }
+
+    /**
+     * @return the file name of document docId
+     */
+    public String documentName(int docId) {
+        return documents[docId];
+    }
+
+    /**
+     * @return bytes used by all encoded posting lists
+     */
+    public long postingBytes() {
+        long total = 0;
+        EntryCursor<String, PostingList> list = postings.cursor();
+        while (list.next()) {
+            total += list.value().encodedBytes();
+        }
+        return total;
+    }
+
+    /**
+     * @return Integer total count of word over the corpus, or null
+     * @throws ArithmeticException if the total does not fit in an int
+     */
+    @Override
+    public Integer find(Object key) {
+        PostingList list = postings.find(key);
+        return list == null ? null : Math.toIntExact(list.totalCount());
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return postings.containsKey(key);
+    }
+
+    /**
+     * O(n): (word, Integer total count) pairs.
+     */
+    @Override
+    public Entry<String, Integer>[] getEntries() {
+        Entry<String, Integer>[] arr = Entry.newArray(numKeys);
+        EntryCursor<String, Integer> word = cursor();
+        for (int n = 0; word.next(); n++) {
+            arr[n] = word.entry();
+        }
+        return arr;
+    }
+
+    /**
+     * Reads the posting map in place; value() is the total count.
+     */
+    @Override
+    public EntryCursor<String, Integer> cursor() {
+        EntryCursor<String, PostingList> word = postings.cursor();
+
+        return new EntryCursor<String, Integer>() {
+            @Override
+            public boolean next() {
+                return word.next();
+            }
+
+            @Override
+            public String key() {
+                return word.key();
+            }
+
+            @Override
+            public Integer value() {
+                return count();
+            }
+
+            @Override
+            public int count() {
+                return Math.toIntExact(word.value().totalCount());
+            }
+        };
+    }
+
+    @Override
+    public void enableStats() {
+        postings.enableStats();
+    }
+
+    @Override
+    public HashMapStats getStats() {
+        return postings.getStats();
+    }
+
+    @Override
+    public int[] bucketLengthHistogram() {
+        return postings.bucketLengthHistogram();
+    }
+
+    /**
+     * The index is read-only.
+     */
+    @Override
+    public void put(String key, Integer value) {
+        throw new UnsupportedOperationException("CorpusIndex is read-only");
+    }
+
+    @Override
+    public int increment(String key, int delta) {
+        throw new UnsupportedOperationException("CorpusIndex is read-only");
+    }
+
+    @Override
+    protected void resize() {
+        throw new UnsupportedOperationException("CorpusIndex is read-only");
+    }
+}
@@ -0,0 +1,96 @@
+// CorpusIndexTest.java
+// Round trip of PostingList's varints at the 7-bit boundaries, then a
+// CorpusIndex over a temporary directory holding the bundled books, a
+// copy of one of them and a file without a Gutenberg START marker (which
+// is skipped). Every document is recounted directly and each of its words
+// must have exactly that (docId, count) posting; document frequencies and
+// total counts must add up, and no posting may belong to a word the
+// document does not contain.
+// Usage: java CorpusIndexTest
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class CorpusIndexTest {
+    public static void main(String[] args) throws IOException {
+        // gaps and counts on both sides of each varint byte boundary
+        int[] values = {0, 1, 0x7f, 0x80, 0x3fff, 0x4000, 0x1fffff, 0x200000, Integer.MAX_VALUE};
+        PostingList list = new PostingList();
+        int[] docIds = new int[values.length];
+        int docId = -1;
+        long total = 0;
+        for (int i = 0; i < values.length; i++) {
+            docId += 1 + Math.min(values[i], 1 << 20);
+            docIds[i] = docId;
+            list.add(docId, values[i]);
+            total += values[i];
+        }
+        int[][] decoded = list.decode();
+        System.out.println("varint round trip: " + (Arrays.equals(decoded[0], docIds)
+                           && Arrays.equals(decoded[1], values)) + ", document frequency "
+                           + list.documentFrequency() + ", total count exact: "
+                           + (list.totalCount() == total)); // true, 9, true
+        try {
+            list.add(docId, 1);
+            System.out.println("repeated docId accepted");
+        } catch (IllegalArgumentException expected) {
+            System.out.println("repeated docId: " + expected.getMessage()); // docId ... after ...
+        }
+
+        File dir = Files.createTempDirectory("corpus").toFile();
+        String[] books = {"pg84.txt", "pride_and_prejudice.txt"};
+        for (String book : books) {
+            Files.copy(new File(book).toPath(), new File(dir, book).toPath());
+        }
+        Files.copy(new File(books[0]).toPath(), new File(dir, "pg84_copy.txt").toPath());
+        Files.write(new File(dir, "notes.txt").toPath(), "no start marker here\n".getBytes());
+
+        CorpusIndex index = CorpusIndex.build(dir, "probe", HashStrategy.MIXED, 4);
+        System.out.println("documents: " + index.documentCount()); // 3 (notes.txt skipped)
+
+        // each document recounted on its own must match its postings
+        boolean postingsMatch = true;
+        long postingCount = 0;
+        long wordTotal = 0;
+        for (int d = 0; d < index.documentCount(); d++) {
+            AbstractHashMap<String, Integer> direct =
+                TextAnalytics.countWords(new File(dir, index.documentName(d)), "chain");
+            postingCount += direct.size();
+            EntryCursor<String, Integer> word = direct.cursor();
+            while (word.next()) {
+                wordTotal += word.count();
+                int[][] postings = index.postings(word.key()).decode();
+                int at = Arrays.binarySearch(postings[0], d);
+                postingsMatch &= at >= 0 && postings[1][at] == word.count();
+            }
+        }
+
+        // and the index holds nothing else
+        long indexedPostings = 0;
+        long indexedTotal = 0;
+        boolean sumsMatch = true;
+        EntryCursor<String, Integer> word = index.cursor();
+        while (word.next()) {
+            PostingList postings = index.postings(word.key());
+            int[][] pairs = postings.decode();
+            long sum = 0;
+            for (int count : pairs[1]) sum += count;
+            sumsMatch &= sum == postings.totalCount() && word.count() == sum
+                         && pairs[0].length == index.documentFrequency(word.key());
+            indexedPostings += postings.documentFrequency();
+            indexedTotal += word.count();
+        }
+        System.out.println("postings match direct recounts: " + postingsMatch
+                           + ", same number of postings: " + (indexedPostings == postingCount)
+                           + ", same total: " + (indexedTotal == wordTotal)
+                           + ", totals and frequencies agree: " + sumsMatch); // true, true, true, true
+        System.out.println("documentFrequency(the): " + index.documentFrequency("the")
+                           + ", find(zzzz): " + index.find("zzzz")); // 3, null
+
+        for (File f : dir.listFiles()) f.delete();
+        dir.delete();
+        System.out.println("Done");
+    }
+}
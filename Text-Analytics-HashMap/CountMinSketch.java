@@ -0,0 +1,138 @@
+/**
+ * CountMinSketch.java
+ * Approximate counts for any number of distinct keys in fixed memory.
+ *
+ * depth rows of width counters; a key adds its count to one counter per
+ * row (picked by a differently seeded hash) and its estimate is the
+ * smallest of those counters. Estimates never undercount, and with
+ *
+ *    width = e / epsilon,  depth = ln(1 / delta)
+ *
+ * an estimate exceeds the true count by more than epsilon * total with
+ * probability at most delta (Cormode and Muthukrishnan, 2005).
+ * Width is rounded up to a power of two so rows are indexed with a mask.
+ * Keys are hashed from their hashCode(), so keys with equal hash codes
+ * share all their counters.
+ */
+
+public class CountMinSketch {
+
+    private final double epsilon;
+    private final double delta;
+    private final int width;
+    private final int depth;
+    private final int[] counters; // row r is counters[r * width .. (r + 1) * width)
+    private long total;
+
+    /**
+     * @param epsilon error per unit of total count, e.g. 0.0001
+     * @param delta probability that an estimate misses that bound, e.g. 0.001
+     */
+    public CountMinSketch(double epsilon, double delta) {
+        if (epsilon <= 0 || epsilon >= 1 || delta <= 0 || delta >= 1) {
+            throw new IllegalArgumentException("epsilon and delta must be in (0, 1)");
+        }
+        this.epsilon = epsilon;
+        this.delta = delta;
+
+        int minWidth = (int) Math.ceil(Math.E / epsilon);
+        this.width = Integer.highestOneBit(minWidth - 1) << 1;
+        this.depth = (int) Math.ceil(Math.log(1 / delta));
+        this.counters = new int[width * depth];
+    }
+
+    /**
+     * Adds count to the key whose hashCode() is hash.
+     * @return the key's new estimate
+     */
+    public int add(int hash, int count) {
+        int estimate = Integer.MAX_VALUE;
+        for (int r = 0; r < depth; r++) {
+            int i = r * width + column(hash, r);
+            counters[i] += count;
+            estimate = Math.min(estimate, counters[i]);
+        }
+        total += count;
+        return estimate;
+    }
+
+    /**
+     * @return the estimated count of the key whose hashCode() is hash
+     *         (at least its true count)
+     */
+    public int estimate(int hash) {
+        int estimate = Integer.MAX_VALUE;
+        for (int r = 0; r < depth; r++) {
+            estimate = Math.min(estimate, counters[r * width + column(hash, r)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Adds another sketch of the same shape, counter by counter.
+     * The result is the sketch of both streams.
+     */
+    public void addAll(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Sketches have different shapes");
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += other.counters[i];
+        }
+        total += other.total;
+    }
+
+    /**
+     * @return the sum of all counts added
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * @return epsilon * total: the overcount no estimate exceeds
+     *         with probability 1 - delta
+     */
+    public double errorBound() {
+        return epsilon * total;
+    }
+
+    public double epsilon() {
+        return epsilon;
+    }
+
+    public double delta() {
+        return delta;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * @return bytes held by the counters
+     */
+    public long memoryBytes() {
+        return 4L * counters.length;
+    }
+
+    // Helper methods
+
+    /**
+     * Column of hash in row r: the MurmurHash3 finalizer of the hash mixed
+     * with a per-row seed, so rows collide independently.
+     */
+    private int column(int hash, int r) {
+        int h = hash ^ (0x9E3779B9 * (r + 1));
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h & (width - 1);
+    }
+}
@@ -4,11 +4,15 @@
  *
  * The key and the value instance variables are both public
  * You can directly access them (no need for get/set methods)
+ *
+ * hash caches key.hashCode(), so maps can compare hashes before
+ * calling equals() and rehash without calling hashCode() again
  */
-public class Entry
+public class Entry<K, V>
 {
-    public Object key;
-    public Object value;
+    public K key;
+    public V value;
+    public int hash;
 
     /**
      * Defualt cnstructor
@@ -16,19 +20,48 @@ public class Entry
      * @param k the key
      * @param v the value
      */
-    public Entry(Object k, Object v)
+    public Entry(K k, V v)
+    {
+	this(k, v, k.hashCode());
+    }
+
+    /**
+     * Constructor for a caller that already computed the key's hash
+     *
+     * @param k the key
+     * @param v the value
+     * @param h k.hashCode()
+     */
+    public Entry(K k, V v, int h)
     {
 	key = k;
 	value = v;
+	hash = h;
     }
 
     /**
      * Copy constructor
      */
-    public Entry(Entry e)
+    public Entry(Entry<? extends K, ? extends V> e)
     {
 	key = e.key;
 	value = e.value;
+	hash = e.hash;
+    }
+
+    /**
+     * A new array of null entries. Java cannot create an array of a
+     * generic type, so this makes an Entry<?, ?>[] and casts it once here
+     * instead of at every caller (an array of Entry holds any Entry).
+     *
+     * @param length
+     *
+     * @return an array for Entry<K, V> elements
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> Entry<K, V>[] newArray(int length)
+    {
+	return (Entry<K, V>[]) new Entry<?, ?>[length];
     }
 
     /**
@@ -0,0 +1,86 @@
+/**
+ * EntryCursor.java
+ * A read-only cursor over the live entries of a map.
+ *
+ * Unlike getEntries() nothing is copied: next() moves to the following
+ * entry in the map's own table and key()/value() read it in place.
+ * The usual loop is
+ *
+ *    EntryCursor c = map.cursor();
+ *    while (c.next()) { ... c.key() ... c.count() ... }
+ *
+ * The map must not be changed while a cursor is open. For an incremental
+ * ObjectHashMap that includes find(), which moves entries along.
+ */
+
+public abstract class EntryCursor<K, V> {
+
+    /**
+     * Moves to the next entry (the first one on the first call).
+     * @return false once there are no more entries
+     */
+    public abstract boolean next();
+
+    /**
+     * @return the key of the current entry
+     */
+    public abstract K key();
+
+    /**
+     * @return the value of the current entry
+     */
+    public abstract V value();
+
+    /**
+     * @return the current value as an int count; maps that store
+     *         primitive counts override this to avoid boxing
+     */
+    public int count() {
+        return (Integer) value();
+    }
+
+    /**
+     * @return the current value as a long count; maps that store long
+     *         counts override this (count() then caps at Integer.MAX_VALUE)
+     */
+    public long longCount() {
+        return count();
+    }
+
+    /**
+     * @return the current entry; a new Entry unless the map stores Entry
+     *         objects, in which case it is the map's own (live) Entry
+     */
+    public Entry<K, V> entry() {
+        return new Entry<>(key(), value());
+    }
+
+    /**
+     * @return a cursor over an array of entries, e.g. from getEntries()
+     */
+    public static <K, V> EntryCursor<K, V> over(Entry<K, V>[] entries) {
+        return new EntryCursor<K, V>() {
+            private int i = -1;
+
+            @Override
+            public boolean next() {
+                return ++i < entries.length;
+            }
+
+            @Override
+            public K key() {
+                return entries[i].key;
+            }
+
+            @Override
+            public V value() {
+                return entries[i].value;
+            }
+
+            @Override
+            public Entry<K, V> entry() {
+                return entries[i];
+            }
+        };
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * FrequencyRanking.java
+ * Ranks a whole vocabulary by count and writes it out as CSV.
+ *
+ * The ranking order is TopK's (higher count first, then alphabetical).
+ * The vocabulary is sorted alphabetically once (the only String
+ * comparisons), then each word becomes one long,
+ *
+ *    (Integer.MAX_VALUE - count) << 32  |  alphabetical rank
+ *
+ * and an Arrays.parallelSort of the longs gives the final order, ties
+ * included, with no comparator calls. Both sorts are O(n log n), spread
+ * over all cores.
+ */
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Comparator;
+
+public class FrequencyRanking {
+
+    /**
+     * @param wordMap (word, Integer count) map; counts must not be negative
+     * @return the map's entries, most frequent first, ties alphabetical
+     */
+    public static <K> Entry<K, Integer>[] rank(AbstractHashMap<K, Integer> wordMap) {
+        Entry<K, Integer>[] entries = Entry.newArray(wordMap.size());
+        EntryCursor<K, Integer> words = wordMap.cursor();
+        for (int i = 0; words.next(); i++) {
+            entries[i] = words.entry();
+        }
+
+        // alphabetical rank = position after this sort
+        Arrays.parallelSort(entries, Comparator.comparing(e -> e.key.toString()));
+
+        long[] order = new long[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            long count = entries[i].value;
+            order[i] = (Integer.MAX_VALUE - count) << 32 | i;
+        }
+        Arrays.parallelSort(order);
+
+        Entry<K, Integer>[] ranked = Entry.newArray(entries.length);
+        for (int r = 0; r < order.length; r++) {
+            ranked[r] = entries[(int) order[r]];
+        }
+        return ranked;
+    }
+
+    /**
+     * Writes "rank,word,count" lines, with a header line, to out.
+     * out is flushed but not closed.
+     * @return the number of words written
+     */
+    public static int write(AbstractHashMap<?, Integer> wordMap, Writer out) throws IOException {
+        Entry<?, Integer>[] ranked = rank(wordMap);
+        BufferedWriter csv = new BufferedWriter(out, 1 << 16);
+
+        csv.write("rank,word,count");
+        csv.newLine();
+        for (int r = 0; r < ranked.length; r++) {
+            csv.write(Integer.toString(r + 1));
+            csv.write(',');
+            csv.write(csvField(ranked[r].key.toString()));
+            csv.write(',');
+            csv.write(ranked[r].value.toString());
+            csv.newLine();
+        }
+        csv.flush();
+        return ranked.length;
+    }
+
+    // Helper methods
+
+    /**
+     * Quotes a field that contains a comma, quote or line break (RFC 4180).
+     */
+    private static String csvField(String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + field.replace("\"", "\"\"") + '"';
+            }
+        }
+        return field;
+    }
+}
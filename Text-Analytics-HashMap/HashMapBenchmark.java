@@ -0,0 +1,295 @@
+/**
+ * HashMapBenchmark.java
+ * Micro- and end-to-end benchmarks for the Text-Analytics hash maps.
+ *
+ * Follows the JMH recipe by hand (this project has no build file to pull
+ * JMH in): every benchmark runs warm-up iterations first, then measured
+ * iterations, each on fresh state built outside the timed region, and
+ * results are fed to a sink so the JIT cannot drop the work.
+ *
+ *   ObjectHashMap put, find, containsKey, resize and getEntries,
+ *   for several maxLoad values and key counts, in ns per operation;
+ *   the full TextAnalytics pipeline (count + top 5) on each book;
+ *   bytes allocated per word when counting each book's words into a
+ *   boxed ObjectHashMap (find + put, then increment()) and into the
+ *   primitive IntCountHashMap and LongCountHashMap.
+ *
+ * Usage: java HashMapBenchmark [--keys=1000,100000] [--loads=.5,.9] [book.txt ...]
+ * or run-benchmarks.sh to compile and run everything in one step.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+public class HashMapBenchmark {
+
+    private static final int WARMUP = 3;
+    private static final int MEASURE = 5;
+
+    // results go here so the JIT cannot prove the work unused
+    private static volatile Object sink;
+
+    /**
+     * One timed benchmark operation; setUp() runs untimed before each iteration.
+     */
+    private interface Bench {
+        default void setUp() {}
+        void run();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int[] keyCounts = {1000, 100000, 1000000};
+        double[] loads = {.5, .75, .9, 2.0};
+        List<String> books = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.startsWith("--keys=")) {
+                keyCounts = parseInts(arg.substring(7));
+            } else if (arg.startsWith("--loads=")) {
+                loads = parseDoubles(arg.substring(8));
+            } else {
+                books.add(arg);
+            }
+        }
+        if (books.isEmpty()) {
+            books.add("pg84.txt");
+            books.add("pride_and_prejudice.txt");
+        }
+
+        System.out.printf("%-14s %8s %9s %12s %10s%n", "benchmark", "maxLoad", "keys", "ns/op", "+-");
+        for (int n : keyCounts) {
+            String[] keys = new String[n];
+            String[] misses = new String[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = "w" + i;
+                misses[i] = "x" + i;
+            }
+            for (double load : loads) {
+                mapBenchmarks(keys, misses, load);
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-14s %-24s %12s %10s%n", "pipeline", "book", "ms/run", "+-");
+        for (String book : books) {
+            for (String kind : new String[] {"chain", "probe", "offheap"}) {
+                File file = new File(book);
+                double[] ms = measure(1, () -> {
+                    try {
+                        AbstractHashMap<String, Integer> words = TextAnalytics.countWords(file, kind);
+                        sink = TopK.select(words.getEntries(), 5);
+                    } catch (IOException err) {
+                        throw new RuntimeException(err);
+                    }
+                });
+                System.out.printf("%-14s %-24s %12.2f %10.2f%n", kind, book, ms[0] / 1e6, ms[1] / 1e6);
+            }
+        }
+
+        // the words are tokenized up front so only the map's allocations
+        // are measured; "count" fills an empty map, "recount" adds the
+        // same words again to the full map (no new keys, only updates)
+        System.out.println();
+        System.out.printf("%-22s %-24s %14s %14s%n", "allocation", "book", "count B/word", "recount B/word");
+        for (String book : books) {
+            Words words = tokenize(new File(book));
+            allocationBenchmark("ObjectHashMap put", book, words,
+                                () -> new ObjectHashMap<String, Integer>(.9), HashMapBenchmark::countBoxed);
+            allocationBenchmark("ObjectHashMap incr", book, words,
+                                () -> new ObjectHashMap<String, Integer>(.9), HashMapBenchmark::countChars);
+            allocationBenchmark("IntCountHashMap", book, words,
+                                () -> new IntCountHashMap<String>(.5), HashMapBenchmark::countChars);
+            allocationBenchmark("LongCountHashMap", book, words,
+                                () -> new LongCountHashMap<String>(.5), HashMapBenchmark::countChars);
+        }
+    }
+
+    /**
+     * put, find, containsKey, resize and getEntries for one (keys, maxLoad) pair.
+     */
+    private static void mapBenchmarks(String[] keys, String[] misses, double load) {
+        int n = keys.length;
+        @SuppressWarnings("unchecked") // no generic array creation in Java: cast an ObjectHashMap<?, ?>[]
+        ObjectHashMap<String, Integer>[] map = (ObjectHashMap<String, Integer>[]) new ObjectHashMap<?, ?>[1];
+
+        report("put", load, n, measure(n, () -> {
+            ObjectHashMap<String, Integer> m = new ObjectHashMap<>(load);
+            for (String k : keys) m.put(k, 1);
+            sink = m;
+        }));
+
+        ObjectHashMap<String, Integer> full = filled(keys, load);
+        report("find", load, n, measure(n, () -> {
+            long total = 0;
+            for (String k : keys) total += full.find(k);
+            sink = total;
+        }));
+        report("containsKey", load, n, measure(2 * n, () -> {
+            int hits = 0;
+            for (int i = 0; i < n; i++) {
+                if (full.containsKey(keys[i])) hits++;
+                if (full.containsKey(misses[i])) hits++;
+            }
+            sink = hits;
+        }));
+        report("getEntries", load, n, measure(n, () -> sink = full.getEntries()));
+
+        // per entry moved by one resize() of a freshly filled map
+        report("resize", load, n, measure(n, new Bench() {
+            public void setUp() {
+                map[0] = filled(keys, load);
+            }
+            public void run() {
+                map[0].resize();
+                sink = map[0];
+            }
+        }));
+    }
+
+    private static ObjectHashMap<String, Integer> filled(String[] keys, double load) {
+        ObjectHashMap<String, Integer> m = new ObjectHashMap<>(load);
+        for (String k : keys) m.put(k, 1);
+        return m;
+    }
+
+    /**
+     * Every word of a book, back to back in one char[], and as Strings.
+     */
+    private static class Words {
+        char[] chars = new char[1 << 16];
+        int[] ends = new int[1 << 12];
+        String[] strings;
+        int count;
+    }
+
+    private static Words tokenize(File book) throws IOException {
+        Words words = new Words();
+        int length = 0;
+        WordTokenizer tokens = TextAnalytics.openBook(book);
+        if (tokens.skipToStart()) {
+            while (tokens.next()) {
+                int n = tokens.wordLength();
+                if (length + n > words.chars.length) {
+                    words.chars = Arrays.copyOf(words.chars, 2 * (length + n));
+                }
+                if (words.count == words.ends.length) {
+                    words.ends = Arrays.copyOf(words.ends, 2 * words.count);
+                }
+                System.arraycopy(tokens.wordChars(), 0, words.chars, length, n);
+                length += n;
+                words.ends[words.count++] = length;
+            }
+        }
+        tokens.close();
+        words.strings = new String[words.count];
+        for (int w = 0, start = 0; w < words.count; start = words.ends[w++]) {
+            words.strings[w] = new String(words.chars, start, words.ends[w] - start);
+        }
+        return words;
+    }
+
+    /**
+     * Counts words into a fresh map, then again into the same map, and
+     * prints the bytes allocated per word by each pass (best of MEASURE).
+     */
+    private static <M extends AbstractHashMap<String, ?>> void allocationBenchmark(
+        String name, String book, Words words, Supplier<M> maps, BiConsumer<M, Words> counting) {
+        long count = Long.MAX_VALUE;
+        long recount = Long.MAX_VALUE;
+        for (int i = 0; i < WARMUP + MEASURE; i++) {
+            M map = maps.get();
+            long start = allocatedBytes();
+            counting.accept(map, words);
+            long middle = allocatedBytes();
+            counting.accept(map, words);
+            long end = allocatedBytes();
+            sink = map;
+            if (i >= WARMUP) {
+                count = Math.min(count, middle - start);
+                recount = Math.min(recount, end - middle);
+            }
+        }
+        System.out.printf("%-22s %-24s %14.2f %14.2f%n", name, book,
+                          (double) count / words.count, (double) recount / words.count);
+    }
+
+    /**
+     * Counts with find() and put() of a boxed Integer, as callers of the
+     * untyped map did. Uses the words' Strings, so no key is allocated.
+     */
+    private static void countBoxed(AbstractHashMap<String, Integer> map, Words words) {
+        for (String word : words.strings) {
+            Integer count = map.find(word);
+            map.put(word, count == null ? 1 : count + 1);
+        }
+    }
+
+    /**
+     * Counts with increment() on the chars, as TextAnalytics does.
+     */
+    private static void countChars(AbstractHashMap<String, ?> map, Words words) {
+        int start = 0;
+        for (int w = 0; w < words.count; w++) {
+            map.increment(words.chars, start, words.ends[w] - start, 1);
+            start = words.ends[w];
+        }
+    }
+
+    /**
+     * @return bytes allocated by this thread so far
+     */
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+            .getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Runs WARMUP then MEASURE iterations of bench.
+     * @return {mean, standard deviation} in ns per operation
+     */
+    private static double[] measure(int opsPerRun, Bench bench) {
+        for (int i = 0; i < WARMUP; i++) {
+            bench.setUp();
+            bench.run();
+        }
+
+        double[] samples = new double[MEASURE];
+        for (int i = 0; i < MEASURE; i++) {
+            bench.setUp();
+            long start = System.nanoTime();
+            bench.run();
+            samples[i] = (double) (System.nanoTime() - start) / opsPerRun;
+        }
+
+        double mean = 0;
+        for (double s : samples) mean += s;
+        mean /= MEASURE;
+        double var = 0;
+        for (double s : samples) var += (s - mean) * (s - mean);
+        return new double[] {mean, Math.sqrt(var / MEASURE)};
+    }
+
+    private static void report(String name, double load, int keys, double[] result) {
+        System.out.printf("%-14s %8.2f %9d %12.1f %10.1f%n", name, load, keys, result[0], result[1]);
+    }
+
+    private static int[] parseInts(String list) {
+        String[] parts = list.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) values[i] = Integer.parseInt(parts[i]);
+        return values;
+    }
+
+    private static double[] parseDoubles(String list) {
+        String[] parts = list.split(",");
+        double[] values = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) values[i] = Double.parseDouble(parts[i]);
+        return values;
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * HashMapStats.java
+ * Operation counters for an AbstractHashMap, for tuning maxLoad.
+ *
+ * A map only records into a HashMapStats after enableStats(); until then
+ * its stats reference is null and each operation pays one null check.
+ * The counters are public like Entry's fields, and are updated by the map
+ * without synchronization (ConcurrentObjectHashMap keeps one per segment).
+ */
+
+public class HashMapStats {
+
+    public long puts;        // put() and increment() calls
+    public long finds;       // find() and containsKey() calls
+    public long hits;        // finds that found the key
+    public long misses;      // finds that did not
+    public long probes;      // keys compared (or slots visited) by puts and finds
+    public long resizes;
+    public long resizeNanos; // time in resize(), including incremental migration
+
+    /**
+     * Adds another map's counters to these (used to total up segments).
+     */
+    public void add(HashMapStats other) {
+        puts += other.puts;
+        finds += other.finds;
+        hits += other.hits;
+        misses += other.misses;
+        probes += other.probes;
+        resizes += other.resizes;
+        resizeNanos += other.resizeNanos;
+    }
+
+    /**
+     * @return average keys compared per put or find
+     */
+    public double averageProbes() {
+        long operations = puts + finds;
+        return operations == 0 ? 0 : (double) probes / operations;
+    }
+
+    /**
+     * @param map the map these stats belong to
+     * @return the counters plus the map's size, capacity, maxLoad and
+     *         bucket length histogram, as a JSON object
+     */
+    public String toJson(AbstractHashMap<?, ?> map) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"map\": \"").append(map.getClass().getSimpleName()).append("\",\n");
+        json.append("  \"size\": ").append(map.size()).append(",\n");
+        json.append("  \"capacity\": ").append(map.getCapacity()).append(",\n");
+        json.append("  \"maxLoad\": ").append(map.maxLoad).append(",\n");
+        json.append("  \"puts\": ").append(puts).append(",\n");
+        json.append("  \"finds\": ").append(finds).append(",\n");
+        json.append("  \"hits\": ").append(hits).append(",\n");
+        json.append("  \"misses\": ").append(misses).append(",\n");
+        json.append("  \"probes\": ").append(probes).append(",\n");
+        json.append("  \"averageProbes\": ").append(String.format("%.4f", averageProbes())).append(",\n");
+        json.append("  \"resizes\": ").append(resizes).append(",\n");
+        json.append("  \"resizeMillis\": ").append(String.format("%.3f", resizeNanos / 1e6)).append(",\n");
+
+        int[] histogram = map.bucketLengthHistogram();
+        json.append("  \"bucketLengthHistogram\": ");
+        if (histogram == null) {
+            json.append("null");
+        } else {
+            json.append("[");
+            for (int i = 0; i < histogram.length; i++) {
+                if (i > 0) json.append(", ");
+                json.append(histogram[i]);
+            }
+            json.append("]");
+        }
+        json.append("\n}\n");
+        return json.toString();
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * HashStrategy.java
+ * Turns a key's hashCode() into a bucket index.
+ *
+ * MODULO is the original (hashCode % size + size) % size: two integer
+ * divisions and only the low bits of the hash matter.
+ * MIXED first runs the hash through the MurmurHash3 finalizer, so every
+ * input bit affects the low bits, then masks with size - 1. The maps
+ * always have power-of-two table sizes (16, doubling), so the mask is
+ * exact.
+ */
+
+public interface HashStrategy {
+
+    /**
+     * @param hashCode a key's hashCode()
+     * @param tableSize number of buckets (a power of two for MIXED)
+     * @return index in [0, tableSize)
+     */
+    int index(int hashCode, int tableSize);
+
+    HashStrategy MODULO = (hashCode, tableSize) -> (hashCode % tableSize + tableSize) % tableSize;
+
+    HashStrategy MIXED = (hashCode, tableSize) -> {
+        int h = hashCode;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h & (tableSize - 1);
+    };
+
+    /**
+     * @param name "mixed" or "modulo"
+     */
+    static HashStrategy forName(String name) {
+        if (name.equals("mixed")) return MIXED;
+        if (name.equals("modulo")) return MODULO;
+        throw new IllegalArgumentException("Unknown hash strategy: " + name);
+    }
+}
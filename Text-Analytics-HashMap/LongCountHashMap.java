@@ -0,0 +1,298 @@
+/**
+ * LongCountHashMap.java
+ * IntCountHashMap with long counts: any key type K to a primitive long,
+ * for totals that can pass Integer.MAX_VALUE (e.g. byte counts, or word
+ * counts over a very large corpus).
+ *
+ * getLong(), putLong() and add() never box; find() and put() box a Long.
+ * The int-based counting methods of AbstractHashMap (increment, cursor
+ * count()) return counts capped at Integer.MAX_VALUE; cursor longCount()
+ * returns the full count. The char[] methods assume String keys.
+ *
+ * Each slot also caches its key's hash code, so probing compares ints
+ * before Strings and resizing never calls hashCode() again.
+ */
+
+public class LongCountHashMap<K> extends AbstractHashMap<K, Long> {
+
+    // Linear probing degrades quickly near a full table
+    private static final double MAX_PROBING_LOAD = .75;
+
+    private Object[] keys;
+    private long[] counts;
+    private int[] hashes;
+
+    /**
+     * Constructor for the hash map.
+     * @param maxLoad double, maximum allowed load factor before resizing
+     *                (values above 0.75 are lowered to 0.75).
+     */
+    public LongCountHashMap(double maxLoad) {
+        super(Math.min(maxLoad, MAX_PROBING_LOAD));
+
+        keys = new Object[capacity];
+        counts = new long[capacity];
+        hashes = new int[capacity];
+    }
+
+    /**
+     * Inserts or updates a key/value pair.
+     * Average time: O(1) per insertion when load factor is maintained.
+     */
+    @Override
+    public void put(K key, Long value) {
+        putLong(key, value);
+    }
+
+    /**
+     * put() without boxing.
+     */
+    public void putLong(K key, long count) {
+        if (stats != null) stats.puts++;
+        int slot = claimSlot(key, key.hashCode());
+        counts[slot] = count;
+    }
+
+    /**
+     * Adds delta to the count stored for key, inserting it with count
+     * delta if it is not present yet. One hash and one probe sequence.
+     * @param key word to count
+     * @return the updated count
+     */
+    public long add(K key, long delta) {
+        if (stats != null) stats.puts++;
+        int slot = claimSlot(key, key.hashCode());
+        counts[slot] += delta;
+        return counts[slot];
+    }
+
+    /**
+     * add() for int deltas.
+     * @return the updated count, capped at Integer.MAX_VALUE
+     */
+    @Override
+    public int increment(K key, int delta) {
+        return capped(add(key, delta));
+    }
+
+    /**
+     * increment() for the word in chars[offset..offset+length); the String
+     * is only created if the word is not in the map yet. Only for String keys.
+     * @return the updated count, capped at Integer.MAX_VALUE
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int increment(char[] chars, int offset, int length, int delta) {
+        int h = hashChars(chars, offset, length);
+        int slot = indexFor(h, capacity);
+        if (stats != null) stats.puts++;
+
+        while (keys[slot] != null) {
+            if (stats != null) stats.probes++;
+            if (hashes[slot] == h && sameChars(keys[slot], chars, offset, length)) {
+                counts[slot] += delta;
+                return capped(counts[slot]);
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+
+        slot = claimSlot((K) new String(chars, offset, length), h);
+        counts[slot] += delta;
+        return capped(counts[slot]);
+    }
+
+    /**
+     * Adds every count of other, reading them as longs (see
+     * EntryCursor.longCount()), so nothing is capped.
+     */
+    @Override
+    public void addAll(AbstractHashMap<? extends K, ?> other) {
+        EntryCursor<? extends K, ?> e = other.cursor();
+        while (e.next()) {
+            add(e.key(), e.longCount());
+        }
+    }
+
+    /**
+     * Finds and returns the count for a given key.
+     * @param key Object
+     * @return Long count, or null if key not found
+     */
+    @Override
+    public Long find(Object key) {
+        int slot = indexOf(key);
+
+        if (slot < 0) {
+            return null;
+        }
+        return counts[slot];
+    }
+
+    /**
+     * find() without boxing.
+     * @return the count for key, or 0 if key not found
+     */
+    public long getLong(Object key) {
+        int slot = indexOf(key);
+        return slot < 0 ? 0 : counts[slot];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * O(n): Resizes hash table by doubling capacity.
+     * Every key is re-probed into the new arrays; no load checks are
+     * repeated since the new table is guaranteed to have room.
+     */
+    @Override
+    protected void resize() {
+
+        long start = stats != null ? System.nanoTime() : 0;
+        Object[] oldKeys = keys;
+        long[] oldCounts = counts;
+        int[] oldHashes = hashes;
+        capacity = capacity * 2;
+
+        keys = new Object[capacity];
+        counts = new long[capacity];
+        hashes = new int[capacity];
+
+        // O(n): visiting every old slot once, reusing the cached hashes
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = indexFor(oldHashes[i], capacity);
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+
+        if (stats != null) {
+            stats.resizes++;
+            stats.resizeNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * O(capacity): Collects all entries into an array.
+     * Counts are boxed here, once per key, rather than on every update.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Entry<K, Long>[] getEntries() {
+        Entry<K, Long>[] arr = Entry.newArray(numKeys);
+        int n = 0;
+
+        for (int i = 0; i < capacity; i++) {
+            if (keys[i] != null) {
+                arr[n++] = new Entry<>((K) keys[i], counts[i]);
+            }
+        }
+        return arr;
+    }
+
+    @Override
+    protected int slotCount() {
+        return capacity;
+    }
+
+    /**
+     * Reads keys[] and counts[] in place; count() and longCount() do not box.
+     */
+    @Override
+    protected EntryCursor<K, Long> cursor(int fromSlot, int toSlot) {
+        return new EntryCursor<K, Long>() {
+            private int slot = fromSlot - 1;
+
+            @Override
+            public boolean next() {
+                while (++slot < toSlot) {
+                    if (keys[slot] != null) return true;
+                }
+                return false;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public K key() {
+                return (K) keys[slot];
+            }
+
+            @Override
+            public Long value() {
+                return counts[slot];
+            }
+
+            @Override
+            public int count() {
+                return capped(counts[slot]);
+            }
+
+            @Override
+            public long longCount() {
+                return counts[slot];
+            }
+        };
+    }
+
+    // Helper methods
+
+    private static int capped(long count) {
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the slot holding key, inserting the key with count 0
+     * first if it is not present (resizing if that would exceed maxLoad).
+     */
+    private int claimSlot(K key, int h) {
+        int slot = probe(key, h);
+
+        if (keys[slot] == null) {
+            if (numKeys + 1 > maxLoad * capacity) {
+                resize();
+                slot = probe(key, h);
+            }
+            keys[slot] = key;
+            counts[slot] = 0;
+            hashes[slot] = h;
+            numKeys++;
+        }
+        return slot;
+    }
+
+    /**
+     * @return slot of key, or -1 if the key is not in the map
+     */
+    private int indexOf(Object key) {
+        int slot = probe(key, key.hashCode());
+
+        if (stats != null) {
+            stats.finds++;
+            if (keys[slot] == null) stats.misses++; else stats.hits++;
+        }
+        return keys[slot] == null ? -1 : slot;
+    }
+
+    /**
+     * Walks the probe sequence for key, whose hash code is h.
+     * Capacity is always a power of two, so stepping wraps with a mask.
+     * @return slot holding key, or the first empty slot where it would go
+     */
+    private int probe(Object key, int h) {
+        int slot = indexFor(h, capacity);
+
+        while (keys[slot] != null && !(hashes[slot] == h && keys[slot].equals(key))) {
+            if (stats != null) stats.probes++;
+            slot = (slot + 1) & (capacity - 1);
+        }
+        if (stats != null && keys[slot] != null) stats.probes++;
+        return slot;
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ * LongIntHashMap.java
+ * An open-addressing (linear probing) hash map from long keys to int counts.
+ *
+ * The long-keyed sibling of IntCountHashMap, for keys that are packed
+ * numbers rather than Strings (e.g. n-grams of word ids, see
+ * NGramCounter). Keys and counts live in parallel long[] and int[]
+ * arrays: 12 bytes a slot, no Entry, no boxing on the primitive methods.
+ *
+ * Key 0 marks an empty slot, so a 0 key is kept apart in its own field.
+ * The methods inherited from AbstractHashMap box the Long keys and
+ * Integer values.
+ */
+
+public class LongIntHashMap extends AbstractHashMap<Long, Integer> {
+
+    // Linear probing degrades quickly near a full table
+    private static final double MAX_PROBING_LOAD = .75;
+
+    private long[] keys;
+    private int[] counts;
+
+    private boolean hasZeroKey;
+    private int zeroKeyCount;
+
+    /**
+     * Constructor for the hash map.
+     * @param maxLoad double, maximum allowed load factor before resizing
+     *                (values above 0.75 are lowered to 0.75).
+     */
+    public LongIntHashMap(double maxLoad) {
+        super(Math.min(maxLoad, MAX_PROBING_LOAD));
+
+        keys = new long[capacity];
+        counts = new int[capacity];
+    }
+
+    /**
+     * Adds delta to the count stored for key, inserting it with count
+     * delta if it is not present yet. One hash and one probe sequence.
+     * @return the updated count
+     */
+    public int increment(long key, int delta) {
+        if (stats != null) stats.puts++;
+
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                numKeys++;
+            }
+            zeroKeyCount += delta;
+            return zeroKeyCount;
+        }
+
+        int slot = claimSlot(key);
+        counts[slot] += delta;
+        return counts[slot];
+    }
+
+    /**
+     * @return the count for key, or 0 if the key is not in the map
+     */
+    public int get(long key) {
+        if (stats != null) stats.finds++;
+
+        if (key == 0) {
+            return zeroKeyCount;
+        }
+        int slot = probe(key);
+        if (stats != null) {
+            if (keys[slot] == 0) stats.misses++; else stats.hits++;
+        }
+        return counts[slot];
+    }
+
+    /**
+     * @return True if key is in the map
+     */
+    public boolean contains(long key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        return keys[probe(key)] != 0;
+    }
+
+    /**
+     * Inserts or updates a key/value pair.
+     */
+    @Override
+    public void put(Long key, Integer value) {
+        long k = key;
+        increment(k, value - get(k));
+    }
+
+    @Override
+    public int increment(Long key, int delta) {
+        return increment((long) key, delta);
+    }
+
+    /**
+     * @return Integer count, or null if key is not a Long in the map
+     */
+    @Override
+    public Integer find(Object key) {
+        if (!(key instanceof Long) || !contains((Long) key)) {
+            return null;
+        }
+        return get((Long) key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Long && contains((Long) key);
+    }
+
+    /**
+     * O(n): Resizes hash table by doubling capacity.
+     * Every key is re-probed into the new arrays.
+     */
+    @Override
+    protected void resize() {
+
+        long start = stats != null ? System.nanoTime() : 0;
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        capacity = capacity * 2;
+
+        keys = new long[capacity];
+        counts = new int[capacity];
+
+        // O(n): visiting every old slot once
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = indexFor(Long.hashCode(oldKeys[i]), capacity);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+
+        if (stats != null) {
+            stats.resizes++;
+            stats.resizeNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * O(capacity): Collects all entries into an array (Long keys).
+     */
+    @Override
+    public Entry<Long, Integer>[] getEntries() {
+        Entry<Long, Integer>[] arr = Entry.newArray(numKeys);
+        Cursor c = cursor();
+        for (int n = 0; c.next(); n++) {
+            arr[n] = c.entry();
+        }
+        return arr;
+    }
+
+    /**
+     * Same as cursor(), typed so longKey() can be read without boxing.
+     */
+    @Override
+    public Cursor cursor() {
+        return cursor(0, slotCount());
+    }
+
+    /**
+     * Slot capacity holds the 0 key, after the table's own slots.
+     */
+    @Override
+    protected int slotCount() {
+        return capacity + 1;
+    }
+
+    @Override
+    protected Cursor cursor(int fromSlot, int toSlot) {
+        return new Cursor(fromSlot, toSlot);
+    }
+
+    /**
+     * Reads keys[] and counts[] in place.
+     */
+    public class Cursor extends EntryCursor<Long, Integer> {
+
+        private int slot;
+        private final int toSlot;
+
+        Cursor(int fromSlot, int toSlot) {
+            this.slot = fromSlot - 1;
+            this.toSlot = toSlot;
+        }
+
+        @Override
+        public boolean next() {
+            while (++slot < toSlot) {
+                if (slot == capacity ? hasZeroKey : keys[slot] != 0) return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return the current key, unboxed
+         */
+        public long longKey() {
+            return slot == capacity ? 0 : keys[slot];
+        }
+
+        @Override
+        public Long key() {
+            return longKey();
+        }
+
+        @Override
+        public Integer value() {
+            return count();
+        }
+
+        @Override
+        public int count() {
+            return slot == capacity ? zeroKeyCount : counts[slot];
+        }
+    }
+
+    // Helper methods
+
+    /**
+     * Returns the slot holding key (not 0), inserting it with count 0
+     * first if it is not present (resizing if that would exceed maxLoad).
+     */
+    private int claimSlot(long key) {
+        int slot = probe(key);
+
+        if (keys[slot] == 0) {
+            if (numKeys + 1 > maxLoad * capacity) {
+                resize();
+                slot = probe(key);
+            }
+            keys[slot] = key;
+            counts[slot] = 0;
+            numKeys++;
+        }
+        return slot;
+    }
+
+    /**
+     * Walks the probe sequence for key (not 0).
+     * @return slot holding key, or the first empty slot where it would go
+     */
+    private int probe(long key) {
+        int slot = indexFor(Long.hashCode(key), capacity);
+
+        while (keys[slot] != 0 && keys[slot] != key) {
+            if (stats != null) stats.probes++;
+            slot = (slot + 1) & (capacity - 1);
+        }
+        if (stats != null && keys[slot] != 0) stats.probes++;
+        return slot;
+    }
+}
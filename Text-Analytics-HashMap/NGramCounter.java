@@ -0,0 +1,212 @@
+/**
+ * NGramCounter.java
+ * Counts the n-grams (runs of n consecutive words) of a book, for one or
+ * more n at once, in the same pass that counts its words.
+ *
+ * Every distinct word gets an int id the first time it is seen, and an
+ * n-gram is stored as its n ids packed into one long (64 / n bits each),
+ * in a LongIntHashMap per n. The n-gram text is only rebuilt for the few
+ * n-grams that are printed, so a trigram costs 12 bytes a table slot
+ * instead of a String, an Entry and a list node.
+ *
+ * n can be 1 to 3; with n = 3 there is room for 2^21 distinct words.
+ * N-grams run across line and paragraph breaks, like the word stream.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class NGramCounter {
+
+    public static final int MAX_N = 3;
+
+    private final int[] sizes;
+    private final LongIntHashMap[] grams;
+    private final int idBits;   // bits per word id in the largest n-gram
+
+    // word -> id + 1 (0 is "not seen"), and the reverse lookup
+    private final IntCountHashMap<String> ids = new IntCountHashMap<>(.5);
+    private String[] words = new String[1024];
+    private int wordCount;
+
+    // ids of the last MAX_N words, most recent at the end
+    private final int[] window = new int[MAX_N];
+    private int seen;
+
+    /**
+     * @param sizes the n to count n-grams for, each 1 to MAX_N
+     */
+    public NGramCounter(int... sizes) {
+        this.sizes = sizes.clone();
+        this.grams = new LongIntHashMap[sizes.length];
+
+        for (int i = 0; i < sizes.length; i++) {
+            if (sizes[i] < 1 || sizes[i] > MAX_N) {
+                throw new IllegalArgumentException("n-gram size must be 1 to " + MAX_N + ": " + sizes[i]);
+            }
+            grams[i] = new LongIntHashMap(.5);
+        }
+        int maxN = 1;
+        for (int n : sizes) maxN = Math.max(maxN, n);
+        idBits = Long.SIZE / maxN;
+    }
+
+    /**
+     * Counts the words of a book into wordMap and its n-grams into this
+     * counter, in one pass.
+     * @return false if the book has no Gutenberg START marker
+     */
+    public boolean countBook(File book, AbstractHashMap<String, Integer> wordMap) throws IOException {
+        return countBook(book, wordMap, null);
+    }
+
+    /**
+     * countBook() on the words left by normalizer (null for none), so
+     * n-grams are runs of normalized words with the dropped ones skipped.
+     */
+    public boolean countBook(File book, AbstractHashMap<String, Integer> wordMap, WordNormalizer normalizer)
+        throws IOException {
+        WordTokenizer tokens = TextAnalytics.openBook(book);
+        tokens.setNormalizer(normalizer);
+
+        if (!tokens.skipToStart()) {
+            tokens.close();
+            return false;
+        }
+        // O(n * sizes): one word map probe, one id probe and one
+        // n-gram map probe per size for every word
+        while (tokens.next()) {
+            char[] chars = tokens.wordChars();
+            int length = tokens.wordLength();
+            wordMap.increment(chars, 0, length, 1);
+            add(chars, length);
+        }
+        tokens.close();
+        return true;
+    }
+
+    /**
+     * Adds the next word of the text, chars[0..length).
+     */
+    public void add(char[] chars, int length) {
+        System.arraycopy(window, 1, window, 0, MAX_N - 1);
+        window[MAX_N - 1] = idOf(chars, length);
+        seen++;
+
+        for (int i = 0; i < sizes.length; i++) {
+            int n = sizes[i];
+            if (seen >= n) {
+                grams[i].increment(pack(n), 1);
+            }
+        }
+    }
+
+    /**
+     * @return the counts of the n-grams of size n, keyed by packed ids
+     */
+    public LongIntHashMap gramsOf(int n) {
+        for (int i = 0; i < sizes.length; i++) {
+            if (sizes[i] == n) return grams[i];
+        }
+        throw new IllegalArgumentException("Not counting " + n + "-grams");
+    }
+
+    /**
+     * A cursor over the n-grams of size n whose key() is the n-gram text,
+     * words separated by single spaces. The text is built on each key()
+     * call, so TopK only builds it for n-grams that tie the heap's root.
+     */
+    public EntryCursor<String, Integer> cursor(int n) {
+        LongIntHashMap.Cursor packed = gramsOf(n).cursor();
+
+        return new EntryCursor<String, Integer>() {
+            @Override
+            public boolean next() {
+                return packed.next();
+            }
+
+            @Override
+            public String key() {
+                return text(packed.longKey(), n);
+            }
+
+            @Override
+            public Integer value() {
+                return packed.count();
+            }
+
+            @Override
+            public int count() {
+                return packed.count();
+            }
+        };
+    }
+
+    /**
+     * @return the k most frequent n-grams of size n, as (text, count)
+     *         entries, ties alphabetical
+     */
+    public Entry<String, Integer>[] top(int n, int k) {
+        return TopK.select(cursor(n), k);
+    }
+
+    /**
+     * @return the text of an n-gram packed by this counter
+     */
+    public String text(long packed, int n) {
+        int bits = Long.SIZE / n;
+        long mask = bits == Long.SIZE ? -1L : (1L << bits) - 1;
+        StringBuilder text = new StringBuilder();
+
+        for (int i = n - 1; i >= 0; i--) {
+            if (text.length() > 0) text.append(' ');
+            text.append(words[(int) ((packed >>> (i * bits)) & mask)]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return the number of distinct words seen
+     */
+    public int vocabularySize() {
+        return wordCount;
+    }
+
+    // Helper methods
+
+    /**
+     * Packs the last n word ids, oldest in the high bits.
+     */
+    private long pack(int n) {
+        int bits = Long.SIZE / n;
+        long key = 0;
+
+        for (int i = MAX_N - n; i < MAX_N; i++) {
+            key = key << bits | window[i];
+        }
+        return key;
+    }
+
+    /**
+     * @return the id of the word in chars[0..length), assigning the next
+     *         free id if it is new
+     */
+    private int idOf(char[] chars, int length) {
+        int id = ids.increment(chars, 0, length, 0) - 1;
+        if (id >= 0) {
+            return id;
+        }
+
+        id = wordCount;
+        if (idBits < Integer.SIZE && id >= 1 << idBits) {
+            throw new IllegalStateException("More than 2^" + idBits + " distinct words");
+        }
+        ids.increment(chars, 0, length, id + 1);
+        if (wordCount == words.length) {
+            words = Arrays.copyOf(words, 2 * wordCount);
+        }
+        words[wordCount++] = new String(chars, 0, length);
+        return id;
+    }
+}
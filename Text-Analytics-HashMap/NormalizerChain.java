@@ -0,0 +1,184 @@
+/**
+ * NormalizerChain.java
+ * The normalization stages a tokenizer runs on every word before it is
+ * counted, in order, such as "stop,stem": drop stop words, then reduce
+ * the rest to their Porter stems.
+ *
+ * Like the maps' stats, per-stage timing is off unless enableTiming() is
+ * called. When it is on, each stage records the time spent in it and
+ * how many words went in and came out. A stop-word lookup costs about
+ * as much as reading the clock, so the clock's own cost, measured when
+ * timing is enabled, is taken out of the reported times.
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+public class NormalizerChain implements WordNormalizer {
+
+    private final WordNormalizer[] stages;
+
+    // null unless timing is enabled
+    private long[] nanos;
+    private long[] wordsIn;
+    private long[] wordsOut;
+    private double clockNanos;
+
+    public NormalizerChain(WordNormalizer... stages) {
+        this.stages = stages.clone();
+    }
+
+    /**
+     * @param spec comma-separated stages, run in the order given:
+     *             "stop" (built-in English stop words), "stop:file"
+     *             (one stop word per line) and "stem" (Porter stemmer)
+     */
+    public static NormalizerChain parse(String spec) throws IOException {
+        String[] names = spec.split(",");
+        WordNormalizer[] stages = new WordNormalizer[names.length];
+
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i].trim();
+            if (name.equals("stop")) {
+                stages[i] = StopWordFilter.english();
+            } else if (name.startsWith("stop:")) {
+                stages[i] = StopWordFilter.load(new File(name.substring(5)));
+            } else if (name.equals("stem")) {
+                stages[i] = new PorterStemmer();
+            } else {
+                throw new IllegalArgumentException("Unknown normalization stage: " + name);
+            }
+        }
+        return new NormalizerChain(stages);
+    }
+
+    /**
+     * Runs word[0..length) through every stage, stopping at the first
+     * that drops it.
+     * @return the normalized length, or 0 if the word was dropped
+     */
+    @Override
+    public int normalize(char[] word, int length) {
+        if (nanos == null) {
+            for (WordNormalizer stage : stages) {
+                length = stage.normalize(word, length);
+                if (length == 0) return 0;
+            }
+            return length;
+        }
+
+        // one clock read per stage: each stage ends where the next begins
+        long start = System.nanoTime();
+        for (int i = 0; i < stages.length; i++) {
+            wordsIn[i]++;
+            length = stages[i].normalize(word, length);
+            long end = System.nanoTime();
+            nanos[i] += end - start;
+            start = end;
+            if (length == 0) return 0;
+            wordsOut[i]++;
+        }
+        return length;
+    }
+
+    /**
+     * Normalizes a query word the way the tokenizer normalizes the text.
+     * @return the normalized word, or null if a stage drops it
+     */
+    public String apply(String word) {
+        char[] chars = word.toCharArray();
+        int length = normalize(chars, chars.length);
+        return length == 0 ? null : new String(chars, 0, length);
+    }
+
+    /**
+     * @return "stop,stem" etc.
+     */
+    @Override
+    public String name() {
+        StringBuilder name = new StringBuilder();
+        for (WordNormalizer stage : stages) {
+            if (name.length() > 0) name.append(',');
+            name.append(stage.name());
+        }
+        return name.toString();
+    }
+
+    /**
+     * A chain of the same stages for another thread, timed if this one is.
+     */
+    @Override
+    public NormalizerChain copy() {
+        WordNormalizer[] copies = new WordNormalizer[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            copies[i] = stages[i].copy();
+        }
+        NormalizerChain chain = new NormalizerChain(copies);
+        if (nanos != null) chain.enableTiming();
+        return chain;
+    }
+
+    public void enableTiming() {
+        if (nanos == null) {
+            nanos = new long[stages.length];
+            wordsIn = new long[stages.length];
+            wordsOut = new long[stages.length];
+            clockNanos = clockCost();
+        }
+    }
+
+    /**
+     * Adds another chain's timings (a copy() run on another thread) to this one's.
+     */
+    public void addTiming(NormalizerChain other) {
+        if (nanos == null || other.nanos == null) return;
+        for (int i = 0; i < stages.length; i++) {
+            nanos[i] += other.nanos[i];
+            wordsIn[i] += other.wordsIn[i];
+            wordsOut[i] += other.wordsOut[i];
+        }
+    }
+
+    public int stageCount() {
+        return stages.length;
+    }
+
+    public String stageName(int stage) {
+        return stages[stage].name();
+    }
+
+    /**
+     * @return nanoseconds spent in the stage, less one clock read per
+     *         word (0 unless timing is enabled)
+     */
+    public long stageNanos(int stage) {
+        return nanos == null ? 0 : Math.max(0, nanos[stage] - (long) (clockNanos * wordsIn[stage]));
+    }
+
+    public long stageWordsIn(int stage) {
+        return wordsIn == null ? 0 : wordsIn[stage];
+    }
+
+    public long stageWordsOut(int stage) {
+        return wordsOut == null ? 0 : wordsOut[stage];
+    }
+
+    // Helper methods
+
+    /**
+     * @return the cost of one System.nanoTime() call, the cheapest of a few
+     *         averages over back-to-back calls
+     */
+    private static double clockCost() {
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            long last = start;
+            for (int i = 0; i < 20000; i++) {
+                last = System.nanoTime();
+            }
+            best = Math.min(best, (last - start) / 20000.0);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,139 @@
+// NormalizerTest.java
+// Checks the normalization stages: the Porter stemmer against the examples
+// of Porter's paper, the perfect-hash stop-word set against a HashSet for
+// every word of up to three letters, and the tokenizer running a chain.
+// The last part counts each book a few times with a timed "stop,stem"
+// chain and prints the steady-state cost of each stage, and the bytes a
+// normalized word allocates (expect 0: stages work on the word buffer).
+// Usage: java NormalizerTest [book.txt ...]
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class NormalizerTest {
+    public static void main(String[] args) throws IOException {
+        String[] books = args.length > 0 ? args : new String[] {"pg84.txt", "pride_and_prejudice.txt"};
+
+        // word, stem pairs from "An algorithm for suffix stripping" (Porter, 1980)
+        String[] pairs = {
+            "caresses", "caress", "ponies", "poni", "ties", "ti", "caress", "caress", "cats", "cat",
+            "feed", "feed", "agreed", "agre", "plastered", "plaster", "bled", "bled",
+            "motoring", "motor", "sing", "sing", "conflated", "conflat", "troubled", "troubl",
+            "sized", "size", "hopping", "hop", "tanned", "tan", "falling", "fall", "hissing", "hiss",
+            "fizzed", "fizz", "failing", "fail", "filing", "file", "happy", "happi", "sky", "sky",
+            "relational", "relat", "conditional", "condit", "rational", "ration",
+            "valenci", "valenc", "hesitanci", "hesit", "digitizer", "digit", "conformabli", "conform",
+            "radicalli", "radic", "differentli", "differ", "vileli", "vile", "analogousli", "analog",
+            "vietnamization", "vietnam", "predication", "predic", "operator", "oper",
+            "feudalism", "feudal", "decisiveness", "decis", "hopefulness", "hope",
+            "callousness", "callous", "formaliti", "formal", "sensitiviti", "sensit",
+            "sensibiliti", "sensibl", "triplicate", "triplic", "formative", "form",
+            "formalize", "formal", "electriciti", "electr", "electrical", "electr",
+            "hopeful", "hope", "goodness", "good", "revival", "reviv", "allowance", "allow",
+            "inference", "infer", "airliner", "airlin", "gyroscopic", "gyroscop",
+            "adjustable", "adjust", "defensible", "defens", "irritant", "irrit",
+            "replacement", "replac", "adjustment", "adjust", "dependent", "depend",
+            "adoption", "adopt", "homologou", "homolog", "communism", "commun",
+            "activate", "activ", "angulariti", "angular", "homologous", "homolog",
+            "effective", "effect", "bowdlerize", "bowdler", "probate", "probat", "rate", "rate",
+            "cease", "ceas", "controll", "control", "roll", "roll",
+            "connected", "connect", "connecting", "connect", "connection", "connect",
+            "generalizations", "gener", "oscillators", "oscil", "is", "is", "a", "a"
+        };
+        PorterStemmer stemmer = new PorterStemmer();
+        List<String> wrong = new ArrayList<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            String stem = stemmer.stem(pairs[i]);
+            if (!stem.equals(pairs[i + 1])) wrong.add(pairs[i] + " -> " + stem);
+        }
+        System.out.println(pairs.length / 2 + " stems, wrong: " + wrong); // []
+
+        // the perfect-hash set agrees with a HashSet on the list and on every
+        // word of 1 to 3 letters (17,576 + 676 + 26 words)
+        StopWordFilter stop = StopWordFilter.english();
+        Set<String> expected = new HashSet<>(Arrays.asList(StopWordFilter.ENGLISH));
+        boolean allFound = true;
+        for (String word : StopWordFilter.ENGLISH) allFound &= stop.contains(word);
+        int disagree = 0;
+        char[] word = new char[3];
+        for (int length = 1; length <= 3; length++) {
+            for (int n = 0; n < Math.pow(26, length); n++) {
+                for (int i = 0, rest = n; i < length; i++, rest /= 26) word[i] = (char) ('a' + rest % 26);
+                if (stop.contains(word, length) != expected.contains(new String(word, 0, length))) disagree++;
+            }
+        }
+        System.out.println(expected.size() + " stop words in " + stop.tableSize() + " slots, all found: "
+                           + allFound + ", short words that disagree with a HashSet: " + disagree); // true, 0
+        System.out.println("contains(monster): " + stop.contains("monster")
+                           + ", contains(theirs): " + stop.contains("theirs")); // false, true
+        StopWordFilter custom = new StopWordFilter("stop", "alpha", "beta", "alpha");
+        System.out.println("custom list: " + custom.contains("alpha") + " " + custom.contains("beta") + " "
+                           + custom.contains("gamma")); // true true false
+
+        // the tokenizer runs the chain on each word and skips dropped ones
+        NormalizerChain chain = NormalizerChain.parse("stop,stem");
+        WordTokenizer tokens = new WordTokenizer(new StringReader("The Cats were RUNNING\nto the ponies."));
+        tokens.setNormalizer(chain);
+        List<String> words = new ArrayList<>();
+        for (String w = tokens.nextWord(); w != null; w = tokens.nextWord()) words.add(w);
+        System.out.println(chain.name() + ": " + words + ", query running -> " + chain.apply("running")
+                           + ", query the -> " + chain.apply("the")); // [cat, run, poni], run, null
+        try {
+            NormalizerChain.parse("stop,lemma");
+            System.out.println("unknown stage accepted");
+        } catch (IllegalArgumentException expectedError) {
+            System.out.println("unknown stage: " + expectedError.getMessage()); // lemma
+        }
+
+        // steady-state stage costs (clock reads taken out); the last of five runs is printed
+        System.out.printf("%-24s %-6s %10s %10s %10s%n", "book", "stage", "words in", "words out", "ns/word");
+        for (String book : books) {
+            NormalizerChain timed = null;
+            for (int run = 0; run < 5; run++) {
+                timed = NormalizerChain.parse("stop,stem");
+                timed.enableTiming();
+                TextAnalytics.countWords(new File(book), new IntCountHashMap<>(.5), timed);
+            }
+            for (int i = 0; i < timed.stageCount(); i++) {
+                System.out.printf("%-24s %-6s %10d %10d %10.1f%n", book, timed.stageName(i),
+                                  timed.stageWordsIn(i), timed.stageWordsOut(i),
+                                  (double) timed.stageNanos(i) / timed.stageWordsIn(i));
+            }
+        }
+
+        // allocation of the untimed chain over a book's words, in one buffer
+        tokens = TextAnalytics.openBook(new File(books[0]));
+        tokens.skipToStart();
+        List<char[]> text = new ArrayList<>();
+        while (tokens.next()) text.add(Arrays.copyOf(tokens.wordChars(), tokens.wordLength()));
+        tokens.close();
+        NormalizerChain untimed = NormalizerChain.parse("stop,stem");
+        char[] buffer = new char[64];
+        long kept = 0;
+        long bytes = 0;
+        for (int run = 0; run < 3; run++) {
+            long before = allocatedBytes();
+            kept = 0;
+            for (char[] w : text) {
+                System.arraycopy(w, 0, buffer, 0, w.length);
+                if (untimed.normalize(buffer, w.length) > 0) kept++;
+            }
+            bytes = allocatedBytes() - before;
+        }
+        System.out.printf("%d words, %d kept, %.2f bytes allocated per word%n",
+                          text.size(), kept, (double) bytes / text.size()); // 0.00
+        System.out.println("Done");
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+            .getCurrentThreadAllocatedBytes();
+    }
+}
@@ -2,62 +2,182 @@
  * ObjectHashMap.java
  * Homework 6, Part 1-3
  * A simple chaining-based hash map used for TextAnalytics.
+ *
+ * A bucket is a LinkedList until it holds more than TREEIFY_THRESHOLD
+ * entries, then it becomes a TreeBucket ordered by hash and compareTo(),
+ * so even keys that all collide cost O(log n) per lookup. Keys that are
+ * not Comparable, or of mixed classes, stay in a list of any length. remove() turns
+ * a tree that is down to UNTREEIFY_THRESHOLD entries back into a list.
+ *
+ * Any key and value types; the raw ObjectHashMap of older callers is the
+ * same as ObjectHashMap<Object, Object>. The counting methods (increment)
+ * store Integer values.
  */
 
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 
-public class ObjectHashMap extends AbstractHashMap {
+public class ObjectHashMap<K, V> extends AbstractHashMap<K, V> {
 
-    private LinkedList<Entry>[] table;
+    // Non-empty old buckets moved per operation while migrating
+    private static final int MIGRATE_STEP = 4;
+
+    // Longest bucket kept as a list; a longer one is turned into a tree
+    static final int TREEIFY_THRESHOLD = 8;
+    // Lower, so a bucket hovering around the limit does not flip on every call
+    static final int UNTREEIFY_THRESHOLD = 6;
+
+    private Collection<Entry<K, V>>[] table;
+
+    // Incremental mode: old table still being drained, null otherwise
+    private final boolean incremental;
+    private Collection<Entry<K, V>>[] oldTable;
+    private int migrateIndex;
+
+    // Tree bucket order: hash first, then compareTo(); counts as a probe.
+    // The cast is safe: a TreeBucket only holds keys of one Comparable class (see canHold)
+    @SuppressWarnings("unchecked")
+    private final Comparator<Object> treeOrder = (a, b) -> {
+        if (stats != null) stats.probes++;
+        int ha = a.hashCode();
+        int hb = b.hashCode();
+        if (ha != hb) return ha < hb ? -1 : 1;
+        return ((Comparable<Object>) a).compareTo(b);
+    };
 
     /**
      * Constructor for the hash map.
      * @param maxLoad double, maximum allowed load factor before resizing.
      */
     public ObjectHashMap(double maxLoad) {
+        this(maxLoad, false);
+    }
+
+    /**
+     * Constructor for the hash map.
+     * @param maxLoad double, maximum allowed load factor before resizing.
+     * @param incremental if true, resize() only allocates the bigger table
+     *        and entries are migrated a few buckets per operation instead
+     *        of all at once.
+     */
+    public ObjectHashMap(double maxLoad, boolean incremental) {
         super(maxLoad);
+        this.incremental = incremental;
 
-        table = new LinkedList[capacity];
-        for (int i = 0; i < capacity; i++) {
-            table[i] = new LinkedList<Entry>();
-        }
+        // Buckets are created on first insert, so allocating a table is cheap
+        table = new Collection[capacity];
     }
 
     /**
      * Inserts or updates a key/value pair.
      * Average time: O(1) per insertion when load factor is maintained.
-     * Note: resize() operation is O(n) where n is the number of entries in the map.
+     * Note: resize() operation is O(n) where n is the number of entries in the map,
+     * unless the map is incremental.
      */
     @Override
-    public void put(Object key, Object value) {
-
-        double load = (double) numKeys / capacity;
-        if (load > maxLoad) {
-            resize(); // O(n): rehashing all entries requires visiting each entry once
-        }
+    public void put(K key, V value) {
 
-        LinkedList<Entry> bucket = findBucket(key);
-        Entry e = findEntry(bucket, key);
+        int h = key.hashCode();
+        if (stats != null) stats.puts++;
+        prepareWrite();
+        Entry<K, V> e = findEntry(key, h);
 
         // findEntry() is O(n) in worst case where n is size of bucket (usually small)
         if (e == null) {
-            bucket.add(new Entry(key, value));
+            addEntry(new Entry<>(key, value, h));
             numKeys++;
         } else {
             e.value = value;
         }
     }
 
+    /**
+     * Returns the value for key, first putting absent.get() if key is not
+     * in the map: one hash and one bucket walk instead of a find and a put.
+     * @return the value stored for key after the call
+     */
+    public V findOrPut(K key, Supplier<? extends V> absent) {
+
+        int h = key.hashCode();
+        if (stats != null) stats.puts++;
+        prepareWrite();
+        Entry<K, V> e = findEntry(key, h);
+
+        if (e == null) {
+            e = new Entry<>(key, absent.get(), h);
+            addEntry(e);
+            numKeys++;
+        }
+        return e.value;
+    }
+
+    /**
+     * Adds delta to the Integer count for key, inserting it with value
+     * delta if absent. One hash and one bucket walk, unlike the
+     * containsKey/find/put sequence it replaces. Only for Integer values.
+     * @return the updated count
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int increment(K key, int delta) {
+
+        int h = key.hashCode();
+        if (stats != null) stats.puts++;
+        prepareWrite();
+        Entry<K, V> e = findEntry(key, h);
+
+        if (e == null) {
+            addEntry(new Entry<>(key, (V) Integer.valueOf(delta), h));
+            numKeys++;
+            return delta;
+        }
+        int count = (Integer) e.value + delta;
+        e.value = (V) Integer.valueOf(count);
+        return count;
+    }
+
+    /**
+     * increment() for the word in chars[offset..offset+length).
+     * The bucket is probed with the chars and their String-compatible hash,
+     * so the key String is only created when the word is new.
+     * Only for String keys and Integer values.
+     * @return the updated count
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int increment(char[] chars, int offset, int length, int delta) {
+
+        int h = hashChars(chars, offset, length);
+        if (stats != null) stats.puts++;
+        prepareWrite();
+        Entry<K, V> e = findEntry(table[indexFor(h, capacity)], chars, offset, length, h);
+        if (e == null) {
+            e = findEntry(oldBucket(h), chars, offset, length, h);
+        }
+
+        if (e == null) {
+            addEntry(new Entry<>((K) new String(chars, offset, length), (V) Integer.valueOf(delta), h));
+            numKeys++;
+            return delta;
+        }
+        int count = (Integer) e.value + delta;
+        e.value = (V) Integer.valueOf(count);
+        return count;
+    }
+
     /**
      * Finds and returns the value for a given key.
      * @param key Object
-     * @return Object value
-     * @throws IllegalArgumentException if key not found
+     * @return the value, or null if key not found
      */
     @Override
-    public Object find(Object key) {
-        LinkedList<Entry> bucket = findBucket(key);
-        Entry e = findEntry(bucket, key);
+    public V find(Object key) {
+        Entry<K, V> e = lookup(key);
 
         if (e == null) {
             return null;
@@ -65,80 +185,516 @@ public class ObjectHashMap extends AbstractHashMap {
         return e.value;
     }
 
+    /**
+     * find() for the word in chars[offset..offset+length), without
+     * creating a String (unless the bucket is a tree).
+     */
+    @Override
+    public V find(char[] chars, int offset, int length) {
+        if (oldTable != null) {
+            migrateStep();
+        }
+        int h = hashChars(chars, offset, length);
+        Entry<K, V> e = findEntry(table[indexFor(h, capacity)], chars, offset, length, h);
+        if (e == null) {
+            e = findEntry(oldBucket(h), chars, offset, length, h);
+        }
+
+        if (stats != null) {
+            stats.finds++;
+            if (e == null) stats.misses++; else stats.hits++;
+        }
+        return e == null ? null : e.value;
+    }
+
+    /**
+     * Removes key. O(1) average, O(log n) in a tree bucket.
+     * @return the removed value, or null if key was not in the map
+     */
+    @Override
+    public V remove(Object key) {
+        if (oldTable != null) {
+            migrateStep();
+        }
+        int h = key.hashCode();
+        Entry<K, V> e = removeFrom(table, indexFor(h, capacity), key, h);
+
+        if (e == null && oldTable != null) {
+            int old = indexFor(h, oldTable.length);
+            if (old >= migrateIndex) {
+                e = removeFrom(oldTable, old, key, h);
+            }
+        }
+        if (e == null) {
+            return null;
+        }
+        numKeys--;
+        return e.value;
+    }
+
     /**
      * O(n): Resizes hash table by doubling capacity.
      * Rehashing all entries is O(n) where n is the total number of entries in the map.
-     * This operation visits every entry and reinserts it into a new larger table.
+     * This operation visits every entry and moves it into a new larger table.
+     *
+     * In incremental mode only the new table is allocated here; the old one
+     * stays live and is drained MIGRATE_STEP buckets at a time by later
+     * operations, so no single call pays for the whole rehash.
      */
     @Override
     protected void resize() {
 
-        LinkedList<Entry>[] old = table;
-        capacity = capacity * 2;
+        long start = stats != null ? System.nanoTime() : 0;
 
-        table = new LinkedList[capacity];
-        for (int i = 0; i < capacity; i++) {
-            table[i] = new LinkedList<Entry>();
+        // A previous migration must finish before the table can grow again
+        while (oldTable != null) {
+            migrate(Integer.MAX_VALUE);
         }
 
-        numKeys = 0;
+        oldTable = table;
+        migrateIndex = 0;
+        capacity = capacity * 2;
+        table = new Collection[capacity];
 
-        // O(n): reinserting every entry - iterates through all old entries once
-        for (LinkedList<Entry> bucket : old) {
-            for (Entry e : bucket) {
-                put(e.key, e.value);
-            }
+        if (!incremental) {
+            // O(n): moving every entry - iterates through all old entries once
+            migrate(Integer.MAX_VALUE);
+        }
+
+        if (stats != null) {
+            stats.resizes++;
+            stats.resizeNanos += System.nanoTime() - start;
         }
     }
 
     @Override
     public boolean containsKey(Object key) {
-        return findEntry(findBucket(key), key) != null;
+        return lookup(key) != null;
     }
 
     /**
      * O(n): Collects all entries into an array.
      * This method touches every key once, making it O(n) where n is the number of unique keys.
-     * Iterates through all capacity buckets and collects all entries.
+     * Iterates through all capacity buckets (and any not yet migrated old buckets).
      */
     @Override
-    public Entry[] getEntries() {
-        LinkedList<Entry> all = new LinkedList<>();
+    public Entry<K, V>[] getEntries() {
+        Entry<K, V>[] arr = Entry.newArray(numKeys);
+        int n = collect(table, 0, arr, 0);
 
-        // O(n): scanning all buckets - visits each bucket in the table once
-        for (LinkedList<Entry> bucket : table) {
-            for (Entry e : bucket) {
-                all.add(e);
-            }
+        if (oldTable != null) {
+            collect(oldTable, migrateIndex, arr, n);
+        }
+        return arr;
+    }
+
+    /**
+     * Slots [0, capacity) are the table; during a migration the old
+     * table's buckets follow as slots [capacity, capacity + old length).
+     */
+    @Override
+    protected int slotCount() {
+        return capacity + (oldTable == null ? 0 : oldTable.length);
+    }
+
+    /**
+     * Walks the buckets in place, with one iterator per non-empty bucket.
+     * O(1) per entry for list and tree buckets alike (a list bucket can be
+     * any length when its keys cannot be put in a tree).
+     */
+    @Override
+    protected EntryCursor<K, V> cursor(int fromSlot, int toSlot) {
+        return new TableCursor(fromSlot, toSlot);
+    }
+
+    /**
+     * O(capacity): counts how many buckets hold 0, 1, 2, ... entries
+     * (buckets not yet migrated out of an old table included).
+     */
+    @Override
+    public int[] bucketLengthHistogram() {
+        int[] histogram = new int[1];
+        histogram = addLengths(table, 0, histogram);
+
+        if (oldTable != null) {
+            histogram = addLengths(oldTable, migrateIndex, histogram);
         }
+        return histogram;
+    }
+
+    /**
+     * @return true while an incremental resize is still draining the old table
+     */
+    public boolean isMigrating() {
+        return oldTable != null;
+    }
 
-        Entry[] arr = new Entry[all.size()];
-        return all.toArray(arr);
+    /**
+     * O(capacity): for tests and stats.
+     * @return how many buckets are currently trees
+     */
+    public int treeBucketCount() {
+        int trees = 0;
+        for (Collection<Entry<K, V>> bucket : table) {
+            if (bucket instanceof TreeBucket) trees++;
+        }
+        if (oldTable != null) {
+            for (int i = migrateIndex; i < oldTable.length; i++) {
+                if (oldTable[i] instanceof TreeBucket) trees++;
+            }
+        }
+        return trees;
     }
 
     // Helper methods
 
-    private LinkedList<Entry> findBucket(Object key) {
-        int h = hash(key);
+    /**
+     * Write path: resizes if the load is too high, or advances a running
+     * migration.
+     */
+    private void prepareWrite() {
+        double load = (double) numKeys / capacity;
+        if (load > maxLoad) {
+            resize();
+        } else if (oldTable != null) {
+            migrateStep();
+        }
+    }
+
+    /**
+     * Read path: finds the entry for key, helping a running migration along.
+     */
+    private Entry<K, V> lookup(Object key) {
+        if (oldTable != null) {
+            migrateStep();
+        }
+        Entry<K, V> e = findEntry(key, key.hashCode());
+
+        if (stats != null) {
+            stats.finds++;
+            if (e == null) stats.misses++; else stats.hits++;
+        }
+        return e;
+    }
 
-        if (h < 0) {
-            h = h % capacity;
-            if (h < 0) h += capacity;
+    /**
+     * One slice of an incremental resize; its time counts as resize time.
+     */
+    private void migrateStep() {
+        if (stats == null) {
+            migrate(MIGRATE_STEP);
+            return;
         }
+        long start = System.nanoTime();
+        migrate(MIGRATE_STEP);
+        stats.resizeNanos += System.nanoTime() - start;
+    }
 
-        return table[h];
+    /**
+     * Searches the new table and, during a migration, the key's old bucket
+     * if that bucket has not been moved yet.
+     */
+    private Entry<K, V> findEntry(Object key, int h) {
+        Entry<K, V> e = findEntry(table[indexFor(h, capacity)], key, h);
+
+        if (e == null) {
+            e = findEntry(oldBucket(h), key, h);
+        }
+        return e;
+    }
+
+    /**
+     * @return the not yet migrated old bucket for hash code h, or null
+     */
+    private Collection<Entry<K, V>> oldBucket(int h) {
+        if (oldTable == null) return null;
+
+        int old = indexFor(h, oldTable.length);
+        return old >= migrateIndex ? oldTable[old] : null;
+    }
+
+    /**
+     * Adds a new entry to its bucket in the current table, creating the
+     * bucket if needed. A list bucket that grows past TREEIFY_THRESHOLD is
+     * turned into a tree; a tree that is given a key it cannot order goes
+     * back to being a list.
+     */
+    private void addEntry(Entry<K, V> e) {
+        int i = indexFor(e.hash, capacity);
+        Collection<Entry<K, V>> bucket = table[i];
+
+        if (bucket == null) {
+            bucket = new LinkedList<Entry<K, V>>();
+            table[i] = bucket;
+        } else if (bucket instanceof TreeBucket && !((TreeBucket<K, V>) bucket).canHold(e.key)) {
+            bucket = new LinkedList<Entry<K, V>>(bucket);
+            table[i] = bucket;
+        }
+        bucket.add(e);
+
+        if (bucket.size() > TREEIFY_THRESHOLD && bucket instanceof LinkedList) {
+            table[i] = treeify(bucket);
+        }
+    }
+
+    /**
+     * @return the bucket's entries as a TreeBucket, or the bucket itself
+     *         if its keys are not all Comparable and of one class
+     */
+    private Collection<Entry<K, V>> treeify(Collection<Entry<K, V>> bucket) {
+        Class<?> keyClass = bucket.iterator().next().key.getClass();
+
+        if (!Comparable.class.isAssignableFrom(keyClass)) return bucket;
+        for (Entry<K, V> e : bucket) {
+            if (e.key.getClass() != keyClass) return bucket;
+        }
+
+        TreeBucket<K, V> tree = new TreeBucket<>(keyClass, treeOrder);
+        tree.addAll(bucket);
+        return tree;
+    }
+
+    /**
+     * Unlinks the entry for key from buckets[i]. An emptied bucket is
+     * dropped; a tree bucket down to UNTREEIFY_THRESHOLD entries becomes
+     * a list again.
+     * @return the removed entry, or null
+     */
+    private Entry<K, V> removeFrom(Collection<Entry<K, V>>[] buckets, int i, Object key, int h) {
+        Collection<Entry<K, V>> bucket = buckets[i];
+        if (bucket == null) return null;
+
+        Entry<K, V> removed = null;
+        if (bucket instanceof TreeBucket) {
+            removed = ((TreeBucket<K, V>) bucket).removeKey(key);
+            if (bucket.size() <= UNTREEIFY_THRESHOLD) {
+                buckets[i] = new LinkedList<Entry<K, V>>(bucket);
+            }
+        } else {
+            Iterator<Entry<K, V>> it = bucket.iterator();
+            while (it.hasNext()) {
+                Entry<K, V> e = it.next();
+                if (stats != null) stats.probes++;
+                if (e.hash == h && e.key.equals(key)) {
+                    it.remove();
+                    removed = e;
+                    break;
+                }
+            }
+        }
+
+        if (bucket.isEmpty()) {
+            buckets[i] = null;
+        }
+        return removed;
     }
 
     /**
      * Searches for an entry with the given key in the provided bucket.
-     * Worst-case O(n) where n is the number of entries in the bucket
-     * (typically very small when load factor is controlled).
+     * Worst-case O(n) where n is the number of entries in a list bucket
+     * (typically very small when load factor is controlled), O(log n) in
+     * a tree bucket.
+     * Cached hashes are compared first, so equals() only runs on a likely match.
      */
-    private Entry findEntry(LinkedList<Entry> bucket, Object key) {
+    private Entry<K, V> findEntry(Collection<Entry<K, V>> bucket, Object key, int h) {
+        if (bucket == null) return null;
+        if (bucket instanceof TreeBucket) return ((TreeBucket<K, V>) bucket).find(key);
+
         // O(n) worst case: bucket contains n entries
-        for (Entry e : bucket) {
-            if (e.key.equals(key)) return e;
+        for (Entry<K, V> e : bucket) {
+            if (stats != null) stats.probes++;
+            if (e.hash == h && e.key.equals(key)) return e;
+        }
+        return null;
+    }
+
+    /**
+     * Same as findEntry(bucket, key, h) for a key given as a char range.
+     * A tree bucket is searched with a String made from the chars.
+     */
+    private Entry<K, V> findEntry(Collection<Entry<K, V>> bucket, char[] chars, int offset, int length, int h) {
+        if (bucket == null) return null;
+        if (bucket instanceof TreeBucket) {
+            return ((TreeBucket<K, V>) bucket).find(new String(chars, offset, length));
+        }
+
+        for (Entry<K, V> e : bucket) {
+            if (stats != null) stats.probes++;
+            if (e.hash == h && sameChars(e.key, chars, offset, length)) return e;
         }
         return null;
     }
+
+    /**
+     * Moves up to maxBuckets non-empty old buckets into the new table.
+     * Entries are relinked as they are, using their cached hashes and without
+     * re-checking the load. A tree bucket split this way ends up as lists
+     * again unless a half still holds more than TREEIFY_THRESHOLD entries.
+     * Empty buckets are skipped, but at most 10 per bucket budgeted so a
+     * sparse old table cannot turn one step into a full scan.
+     */
+    private void migrate(int maxBuckets) {
+        long emptyVisits = maxBuckets * 10L;
+
+        while (migrateIndex < oldTable.length && maxBuckets > 0) {
+            Collection<Entry<K, V>> bucket = oldTable[migrateIndex];
+            oldTable[migrateIndex] = null;
+            migrateIndex++;
+
+            if (bucket == null || bucket.isEmpty()) {
+                if (--emptyVisits <= 0) break;
+                continue;
+            }
+            for (Entry<K, V> e : bucket) {
+                addEntry(e);
+            }
+            maxBuckets--;
+        }
+
+        if (migrateIndex == oldTable.length) {
+            oldTable = null;
+        }
+    }
+
+    /**
+     * Adds the lengths of buckets[from..] to histogram, growing it as needed.
+     */
+    private static int[] addLengths(Collection<?>[] buckets, int from, int[] histogram) {
+        for (int i = from; i < buckets.length; i++) {
+            int len = buckets[i] == null ? 0 : buckets[i].size();
+            if (len >= histogram.length) {
+                int[] bigger = new int[len + 1];
+                System.arraycopy(histogram, 0, bigger, 0, histogram.length);
+                histogram = bigger;
+            }
+            histogram[len]++;
+        }
+        return histogram;
+    }
+
+    /**
+     * Copies the entries of buckets[from..] into arr starting at n.
+     * @return the next free position in arr
+     */
+    private int collect(Collection<Entry<K, V>>[] buckets, int from, Entry<K, V>[] arr, int n) {
+        // O(n): scanning all buckets - visits each bucket in the table once
+        for (int i = from; i < buckets.length; i++) {
+            if (buckets[i] != null) {
+                for (Entry<K, V> e : buckets[i]) {
+                    arr[n++] = e;
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Cursor over slots [slot, toSlot) of table followed by oldTable.
+     */
+    private class TableCursor extends EntryCursor<K, V> {
+
+        private int slot;
+        private final int toSlot;
+        private Iterator<Entry<K, V>> walk;   // over the bucket being read, null between buckets
+        private Entry<K, V> current;
+
+        TableCursor(int fromSlot, int toSlot) {
+            this.slot = fromSlot;
+            this.toSlot = toSlot;
+        }
+
+        @Override
+        public boolean next() {
+            while (true) {
+                if (walk != null) {
+                    if (walk.hasNext()) {
+                        current = walk.next();
+                        return true;
+                    }
+                    walk = null;
+                }
+                if (slot >= toSlot) {
+                    current = null;
+                    return false;
+                }
+                Collection<Entry<K, V>> bucket = bucketAt(slot++);
+                if (bucket != null) {
+                    walk = bucket.iterator();
+                }
+            }
+        }
+
+        @Override
+        public K key() {
+            return current.key;
+        }
+
+        @Override
+        public V value() {
+            return current.value;
+        }
+
+        @Override
+        public Entry<K, V> entry() {
+            return current;
+        }
+
+        private Collection<Entry<K, V>> bucketAt(int s) {
+            if (s < capacity) return table[s];
+            return oldTable == null ? null : oldTable[s - capacity];
+        }
+    }
+
+    /**
+     * A bucket of entries whose keys are all Comparable and of one class,
+     * kept in a red-black tree: O(log n) find and add however many keys
+     * share the bucket. Iterates in tree order.
+     */
+    private static class TreeBucket<K, V> extends AbstractCollection<Entry<K, V>> {
+
+        private final Class<?> keyClass;
+        private final TreeMap<Object, Entry<K, V>> entries;
+
+        TreeBucket(Class<?> keyClass, Comparator<Object> order) {
+            this.keyClass = keyClass;
+            this.entries = new TreeMap<Object, Entry<K, V>>(order);
+        }
+
+        /**
+         * @return True if key can be ordered against the keys in this tree
+         */
+        boolean canHold(Object key) {
+            return key.getClass() == keyClass;
+        }
+
+        /**
+         * @return the entry for key, or null (also for a key of another class)
+         */
+        Entry<K, V> find(Object key) {
+            return canHold(key) ? entries.get(key) : null;
+        }
+
+        /**
+         * @return the removed entry for key, or null
+         */
+        Entry<K, V> removeKey(Object key) {
+            return canHold(key) ? entries.remove(key) : null;
+        }
+
+        @Override
+        public boolean add(Entry<K, V> e) {
+            entries.put(e.key, e);
+            return true;
+        }
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return entries.values().iterator();
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+    }
 }
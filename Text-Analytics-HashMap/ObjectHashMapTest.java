@@ -0,0 +1,215 @@
+// ObjectHashMapTest.java
+// Simple, no-exceptions test of ObjectHashMap in both resize modes,
+// including its cursor, iterator and spliterator.
+// The last part prints the slowest single put() seen while growing
+// the map to a million keys, which is where a full rehash shows up.
+// Puts interrupted by a garbage collection are left out, since a GC
+// pause says nothing about the map.
+// The colliding-keys part puts up to 65536 Strings with one hashCode()
+// into a map and prints the average find() time, which should grow with
+// log(n) (tree bucket) rather than n (list bucket).
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+public class ObjectHashMapTest {
+    public static void main(String[] args) {
+        System.out.println("Begin simple tests (no exceptions)");
+
+        for (boolean incremental : new boolean[] {false, true}) {
+            System.out.println("incremental = " + incremental);
+            ObjectHashMap<String, Integer> map = new ObjectHashMap<>(.9, incremental);
+
+            // put() + find() + size()
+            map.put("a", 1);
+            map.put("b", 2);
+            map.put("a", 3); // update, not a new key
+            System.out.println("size after put a,b,a: " + map.size()); // expect 2
+            System.out.println("find(a): " + map.find("a")); // 3
+            System.out.println("find(z): " + map.find("z")); // null
+
+            // increment()
+            System.out.println("increment(b, 5): " + map.increment("b", 5)); // 7
+            System.out.println("increment(c, 1): " + map.increment("c", 1)); // 1
+
+            // keys stay reachable while the old table is being drained
+            int n = 3;
+            while (!map.isMigrating() && n < 1000) {
+                map.put("key" + n, n);
+                n++;
+            }
+            // cursor, iterator and parallel stream see the same entries as getEntries(),
+            // also while an incremental map is still migrating
+            long expected = 0;
+            for (Entry<String, Integer> e : map.getEntries()) expected += e.value;
+            long viaCursor = 0;
+            int seen = 0;
+            EntryCursor<String, Integer> cursor = map.cursor();
+            while (cursor.next()) {
+                viaCursor += cursor.count();
+                seen++;
+            }
+            long viaIterator = 0;
+            for (Entry<String, Integer> e : map) viaIterator += e.value;
+            long viaStream = StreamSupport.stream(map.spliterator(), true)
+                .mapToLong(e -> e.value).sum();
+            System.out.println("cursor, iterator, stream match getEntries(): "
+                               + (seen == map.size() && viaCursor == expected
+                                  && viaIterator == expected && viaStream == expected)); // true
+
+            boolean allFound = true;
+            for (int i = 3; i < n; i++) {
+                if (!map.containsKey("key" + i)) allFound = false;
+            }
+            System.out.println("all keys found after growth: " + allFound); // true
+            System.out.println("getEntries().length == size(): "
+                               + (map.getEntries().length == map.size())); // true
+
+            // remove()
+            int before = map.size();
+            System.out.println("remove(a): " + map.remove("a") + ", again: " + map.remove("a")
+                               + ", find(a): " + map.find("a")
+                               + ", size dropped by 1: " + (map.size() == before - 1)); // 3, null, null, true
+        }
+
+        // worst single put() latency, run twice so the JIT has warmed up
+        String[] keys = new String[1000000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "w" + i;
+        }
+        for (int round = 0; round < 2; round++) {
+            long full = worstPutNanos(new ObjectHashMap<>(.9, false), keys);
+            long incr = worstPutNanos(new ObjectHashMap<>(.9, true), keys);
+            System.out.println("round " + round + ": worst put, full resize: "
+                               + full / 1000 + " us, incremental: " + incr / 1000 + " us");
+        }
+        // expect incremental to be far lower: it never moves more than a few buckets per put
+
+        // keys built from "Aa" and "BB" all have the same hashCode()
+        for (int round = 0; round < 2; round++) {
+            for (int bits = 10; bits <= 16; bits += 2) {
+                String[] colliding = collidingKeys(bits);
+                ObjectHashMap<String, Integer> map = new ObjectHashMap<>(.9);
+                for (int i = 0; i < colliding.length; i++) {
+                    map.put(colliding[i], i);
+                }
+                boolean allFound = true;
+                long start = System.nanoTime();
+                for (int i = 0; i < colliding.length; i++) {
+                    if (map.find(colliding[i]) != i) allFound = false;
+                }
+                long perFind = (System.nanoTime() - start) / colliding.length;
+                if (round == 1) {
+                    System.out.println(colliding.length + " colliding keys: all found " + allFound
+                                       + ", tree buckets " + map.treeBucketCount()
+                                       + ", cursor sees all " + (countByCursor(map) == map.size())
+                                       + ", find(miss) " + map.find(colliding[0] + "Aa")
+                                       + ", " + perFind + " ns per find");
+                }
+            }
+        }
+        // expect true, 1, true, null, and ns per find roughly flat as n grows 64x
+
+        // removing colliding keys turns the tree bucket back into a list
+        String[] colliding = collidingKeys(6);
+        ObjectHashMap<String, Integer> shrinking = new ObjectHashMap<>(.9);
+        for (int i = 0; i < colliding.length; i++) {
+            shrinking.put(colliding[i], i);
+        }
+        int treesBefore = shrinking.treeBucketCount();
+        for (int i = 0; i < colliding.length - ObjectHashMap.UNTREEIFY_THRESHOLD; i++) {
+            shrinking.remove(colliding[i]);
+        }
+        boolean restFound = true;
+        for (int i = colliding.length - ObjectHashMap.UNTREEIFY_THRESHOLD; i < colliding.length; i++) {
+            if (!shrinking.find(colliding[i]).equals(i)) restFound = false;
+        }
+        System.out.println("tree buckets before/after removing: " + treesBefore + "/"
+                           + shrinking.treeBucketCount() + ", rest found " + restFound
+                           + ", size " + shrinking.size()); // 1/0, true, 6
+
+        // keys that are not Comparable stay in a list bucket but still work
+        ObjectHashMap<Object, Integer> plain = new ObjectHashMap<>(.9);
+        for (int i = 0; i < 100; i++) {
+            plain.put(new SameHash(i), i);
+        }
+        plain.put("Aa", -1); // a String sharing the bucket
+        boolean allFound = plain.find("Aa").equals(-1);
+        for (int i = 0; i < 100; i++) {
+            if (!plain.find(new SameHash(i)).equals(i)) allFound = false;
+        }
+        System.out.println("non-Comparable colliding keys: all found " + allFound
+                           + ", tree buckets " + plain.treeBucketCount()
+                           + ", cursor sees all " + (countByCursor(plain) == plain.size())); // true, 0, true
+
+        // the primitive-count maps: no boxing, and long counts past Integer.MAX_VALUE
+        IntCountHashMap<String> ints = new IntCountHashMap<>(.5);
+        LongCountHashMap<String> longs = new LongCountHashMap<>(.5);
+        char[] word = "ab".toCharArray();
+        ints.increment(word, 0, 2, 3);
+        longs.increment(word, 0, 2, 3);
+        longs.add("ab", Integer.MAX_VALUE);
+        System.out.println("getInt(ab): " + ints.getInt("ab") + ", getInt(zz): " + ints.getInt("zz")
+                           + ", getLong(ab): " + longs.getLong("ab")
+                           + ", find(ab): " + longs.find("ab")); // 3, 0, 2147483650, 2147483650
+
+        System.out.println("Done");
+    }
+
+    private static long worstPutNanos(ObjectHashMap<String, Integer> map, String[] keys) {
+        long worst = 0;
+        for (int i = 0; i < keys.length; i++) {
+            long gcs = gcCount();
+            long start = System.nanoTime();
+            map.put(keys[i], i);
+            long time = System.nanoTime() - start;
+            if (gcCount() == gcs) {
+                worst = Math.max(worst, time);
+            }
+        }
+        return worst;
+    }
+
+    private static int countByCursor(AbstractHashMap<?, ?> map) {
+        int n = 0;
+        EntryCursor<?, ?> cursor = map.cursor();
+        while (cursor.next()) n++;
+        return n;
+    }
+
+    /**
+     * @return the 2^bits Strings made of bits blocks of "Aa" or "BB"
+     */
+    private static String[] collidingKeys(int bits) {
+        String[] keys = new String[1 << bits];
+        for (int i = 0; i < keys.length; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int b = 0; b < bits; b++) {
+                key.append((i >> b & 1) == 0 ? "Aa" : "BB");
+            }
+            keys[i] = key.toString();
+        }
+        return keys;
+    }
+
+    // A key that is not Comparable, with the same hashCode() as "Aa"
+    private static class SameHash {
+        final int id;
+        SameHash(int id) { this.id = id; }
+        public int hashCode() { return "Aa".hashCode(); }
+        public boolean equals(Object o) { return o instanceof SameHash && ((SameHash) o).id == id; }
+    }
+
+    private static final List<GarbageCollectorMXBean> GCS =
+        ManagementFactory.getGarbageCollectorMXBeans();
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : GCS) {
+            count += gc.getCollectionCount();
+        }
+        return count;
+    }
+}
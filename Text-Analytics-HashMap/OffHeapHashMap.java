@@ -0,0 +1,379 @@
+/**
+ * OffHeapHashMap.java
+ * A word-count map whose keys and counts live outside the Java heap.
+ *
+ * Open addressing (linear probing) over a direct ByteBuffer of 16-byte
+ * slots:
+ *
+ *    int  hash of the key's UTF-8 bytes
+ *    int  count
+ *    long key reference: (arena chunk + 1) << 32 | offset, 0 = empty slot
+ *
+ * Keys are written once, as a varint length and their UTF-8 bytes, into
+ * an arena of direct ByteBuffer chunks. Hashing and comparison run on
+ * those bytes; a String is only made when a key is read back (cursor(),
+ * getEntries()). For millions of distinct words the heap then holds no
+ * per-key objects at all, so there is nothing for the GC to trace.
+ *
+ * There is no remove.
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class OffHeapHashMap extends AbstractHashMap<String, Integer> {
+
+    // Linear probing degrades quickly near a full table
+    private static final double MAX_PROBING_LOAD = .75;
+
+    private static final int SLOT = 16;
+    private static final int FIRST_CHUNK = 1 << 16;
+    private static final int MAX_CHUNK = 1 << 26;
+
+    private ByteBuffer table;
+
+    private final List<ByteBuffer> arena = new ArrayList<>();
+    private ByteBuffer chunk;     // last arena chunk, being filled
+    private long arenaBytes;      // bytes allocated for all chunks
+
+    // UTF-8 of the key being looked up
+    private byte[] scratch = new byte[64];
+    private int scratchLength;
+
+    /**
+     * Constructor for the hash map.
+     * @param maxLoad double, maximum allowed load factor before resizing
+     *                (values above 0.75 are lowered to 0.75).
+     */
+    public OffHeapHashMap(double maxLoad) {
+        super(Math.min(maxLoad, MAX_PROBING_LOAD));
+
+        table = ByteBuffer.allocateDirect(capacity * SLOT);
+    }
+
+    /**
+     * Inserts or updates a key/value pair.
+     */
+    @Override
+    public void put(String key, Integer value) {
+        if (stats != null) stats.puts++;
+        encode(key);
+        table.putInt(claimSlot() + 4, value);
+    }
+
+    @Override
+    public int increment(String key, int delta) {
+        if (stats != null) stats.puts++;
+        encode(key);
+        return addCount(claimSlot(), delta);
+    }
+
+    /**
+     * increment() for the word in chars[offset..offset+length); the chars
+     * are encoded into a reused buffer, so no String is ever made.
+     */
+    @Override
+    public int increment(char[] chars, int offset, int length, int delta) {
+        if (stats != null) stats.puts++;
+        encode(chars, offset, length);
+        return addCount(claimSlot(), delta);
+    }
+
+    /**
+     * @return Integer count, or null if key not found
+     */
+    @Override
+    public Integer find(Object key) {
+        encode(key.toString());
+        int slot = lookup();
+        return slot < 0 ? null : table.getInt(slot + 4);
+    }
+
+    @Override
+    public Integer find(char[] chars, int offset, int length) {
+        encode(chars, offset, length);
+        int slot = lookup();
+        return slot < 0 ? null : table.getInt(slot + 4);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        encode(key.toString());
+        return lookup() >= 0;
+    }
+
+    /**
+     * O(n): Resizes hash table by doubling capacity.
+     * Slots are moved by their cached hashes; the keys in the arena are
+     * not touched.
+     */
+    @Override
+    protected void resize() {
+
+        long start = stats != null ? System.nanoTime() : 0;
+        ByteBuffer old = table;
+        int oldCapacity = capacity;
+        if ((long) capacity * 2 * SLOT > Integer.MAX_VALUE) {
+            throw new IllegalStateException("OffHeapHashMap cannot grow past " + capacity + " slots");
+        }
+        capacity = capacity * 2;
+        table = ByteBuffer.allocateDirect(capacity * SLOT);
+
+        // O(n): visiting every old slot once
+        for (int i = 0; i < oldCapacity; i++) {
+            int from = i * SLOT;
+            long ref = old.getLong(from + 8);
+            if (ref != 0) {
+                int hash = old.getInt(from);
+                int slot = indexFor(hash, capacity);
+                while (table.getLong(slot * SLOT + 8) != 0) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                int to = slot * SLOT;
+                table.putInt(to, hash);
+                table.putInt(to + 4, old.getInt(from + 4));
+                table.putLong(to + 8, ref);
+            }
+        }
+
+        if (stats != null) {
+            stats.resizes++;
+            stats.resizeNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * O(capacity): Collects all entries into an array, decoding every key.
+     */
+    @Override
+    public Entry<String, Integer>[] getEntries() {
+        Entry<String, Integer>[] arr = Entry.newArray(numKeys);
+        EntryCursor<String, Integer> e = cursor();
+        for (int n = 0; e.next(); n++) {
+            arr[n] = e.entry();
+        }
+        return arr;
+    }
+
+    @Override
+    protected int slotCount() {
+        return capacity;
+    }
+
+    /**
+     * Reads the table in place; key() decodes the key's bytes into a new
+     * String, count() reads the count without boxing.
+     */
+    @Override
+    protected EntryCursor<String, Integer> cursor(int fromSlot, int toSlot) {
+        return new EntryCursor<String, Integer>() {
+            private int slot = fromSlot - 1;
+
+            @Override
+            public boolean next() {
+                while (++slot < toSlot) {
+                    if (table.getLong(slot * SLOT + 8) != 0) return true;
+                }
+                return false;
+            }
+
+            @Override
+            public String key() {
+                return decode(table.getLong(slot * SLOT + 8));
+            }
+
+            @Override
+            public Integer value() {
+                return count();
+            }
+
+            @Override
+            public int count() {
+                return table.getInt(slot * SLOT + 4);
+            }
+        };
+    }
+
+    /**
+     * @return bytes held off the heap: the slot table plus every arena
+     *         chunk allocated so far
+     */
+    public long offHeapBytes() {
+        return (long) capacity * SLOT + arenaBytes;
+    }
+
+    // Helper methods
+
+    private int addCount(int slot, int delta) {
+        int count = table.getInt(slot + 4) + delta;
+        table.putInt(slot + 4, count);
+        return count;
+    }
+
+    /**
+     * @return byte offset of the slot holding the encoded key, or -1
+     */
+    private int lookup() {
+        int slot = probe(hashBytes());
+        boolean found = table.getLong(slot + 8) != 0;
+
+        if (stats != null) {
+            stats.finds++;
+            if (found) stats.hits++; else stats.misses++;
+        }
+        return found ? slot : -1;
+    }
+
+    /**
+     * Returns the byte offset of the slot holding the encoded key,
+     * inserting it with count 0 first if it is not present (resizing if
+     * that would exceed maxLoad).
+     */
+    private int claimSlot() {
+        int hash = hashBytes();
+        int slot = probe(hash);
+
+        if (table.getLong(slot + 8) == 0) {
+            if (numKeys + 1 > maxLoad * capacity) {
+                resize();
+                slot = probe(hash);
+            }
+            table.putInt(slot, hash);
+            table.putInt(slot + 4, 0);
+            table.putLong(slot + 8, storeKey());
+            numKeys++;
+        }
+        return slot;
+    }
+
+    /**
+     * Walks the probe sequence for the encoded key, whose hash is hash.
+     * @return byte offset of the slot holding it, or of the empty slot
+     *         where it would go
+     */
+    private int probe(int hash) {
+        int i = indexFor(hash, capacity);
+
+        while (true) {
+            int slot = i * SLOT;
+            long ref = table.getLong(slot + 8);
+            if (ref == 0) return slot;
+            if (stats != null) stats.probes++;
+            if (table.getInt(slot) == hash && sameBytes(ref)) return slot;
+            i = (i + 1) & (capacity - 1);
+        }
+    }
+
+    /**
+     * FNV-1a over the encoded key's UTF-8 bytes.
+     */
+    private int hashBytes() {
+        int h = 0x811c9dc5;
+        for (int i = 0; i < scratchLength; i++) {
+            h ^= scratch[i] & 0xff;
+            h *= 0x01000193;
+        }
+        return h;
+    }
+
+    /**
+     * @return True if the arena key at ref has the encoded key's bytes
+     */
+    private boolean sameBytes(long ref) {
+        ByteBuffer keys = arena.get((int) (ref >>> 32) - 1);
+        int pos = (int) ref;
+
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = keys.get(pos++);
+            length |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+
+        if (length != scratchLength) return false;
+        for (int i = 0; i < length; i++) {
+            if (keys.get(pos + i) != scratch[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Appends the encoded key to the arena.
+     * @return its key reference
+     */
+    private long storeKey() {
+        int needed = 5 + scratchLength;
+        if (chunk == null || chunk.remaining() < needed) {
+            int size = chunk == null ? FIRST_CHUNK : Math.min(MAX_CHUNK, 2 * chunk.capacity());
+            chunk = ByteBuffer.allocateDirect(Math.max(size, needed));
+            arena.add(chunk);
+            arenaBytes += chunk.capacity();
+        }
+
+        long ref = (long) arena.size() << 32 | chunk.position();
+        int length = scratchLength;
+        while ((length & ~0x7f) != 0) {
+            chunk.put((byte) (length & 0x7f | 0x80));
+            length >>>= 7;
+        }
+        chunk.put((byte) length);
+        chunk.put(scratch, 0, scratchLength);
+        return ref;
+    }
+
+    /**
+     * @return the key at ref as a String
+     */
+    private String decode(long ref) {
+        ByteBuffer keys = arena.get((int) (ref >>> 32) - 1);
+        int pos = (int) ref;
+
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = keys.get(pos++);
+            length |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+
+        byte[] bytes = new byte[length];
+        keys.get(pos, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * UTF-8 encodes chars[offset..offset+length) into scratch. ASCII is
+     * copied byte by byte; anything else goes through the JDK encoder.
+     */
+    private void encode(char[] chars, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (chars[offset + i] >= 0x80) {
+                encode(new String(chars, offset, length));
+                return;
+            }
+        }
+        ensureScratch(length);
+        for (int i = 0; i < length; i++) {
+            scratch[i] = (byte) chars[offset + i];
+        }
+        scratchLength = length;
+    }
+
+    private void encode(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        ensureScratch(bytes.length);
+        System.arraycopy(bytes, 0, scratch, 0, bytes.length);
+        scratchLength = bytes.length;
+    }
+
+    private void ensureScratch(int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, 2 * scratch.length)];
+        }
+    }
+}
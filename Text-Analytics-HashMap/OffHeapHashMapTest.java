@@ -0,0 +1,127 @@
+// OffHeapHashMapTest.java
+// Simple, no-exceptions test of OffHeapHashMap, then a check that it
+// counts the bundled books exactly like IntCountHashMap.
+// The last part puts the same distinct words into each map and prints
+// the resident bytes per key: heap growth after a full GC, plus the
+// direct buffers the map holds (OffHeapHashMap.offHeapBytes(); tables
+// dropped by resize() are freed by the GC later and not counted).
+// Usage: java OffHeapHashMapTest [keys]   (default 1000000)
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Supplier;
+
+public class OffHeapHashMapTest {
+    public static void main(String[] args) throws IOException {
+        System.out.println("Begin simple tests (no exceptions)");
+        OffHeapHashMap map = new OffHeapHashMap(.5);
+
+        map.put("a", 1);
+        map.put("b", 2);
+        map.put("a", 3);
+        System.out.println("size after put a,b,a: " + map.size()); // expect 2
+        System.out.println("find(a): " + map.find("a")); // 3
+        System.out.println("find(z): " + map.find("z")); // null
+        System.out.println("increment(b, 5): " + map.increment("b", 5)); // 7
+        char[] text = "xcafe".toCharArray();
+        System.out.println("increment(cafe chars, 1): " + map.increment(text, 1, 4, 1)); // 1
+        System.out.println("find(cafe): " + map.find("cafe")); // 1
+
+        // non-ASCII keys are stored as UTF-8 and read back unchanged
+        map.increment("café", 2);
+        map.increment("naïve", 1);
+        char[] accented = "café".toCharArray();
+        System.out.println("find(café chars): " + map.find(accented, 0, accented.length)); // 2
+        // "cafe\u0301" is café with a combining accent: other bytes, another key
+        System.out.println("containsKey cafe, café, cafe\\u0301: " + map.containsKey("cafe") + " "
+                           + map.containsKey("café") + " " + map.containsKey("cafe\u0301")); // true true false
+
+        // grow through several resizes and arena chunks
+        for (int i = 0; i < 100000; i++) {
+            map.increment("key" + i, i);
+        }
+        boolean allFound = true;
+        for (int i = 0; i < 100000; i++) {
+            allFound &= map.find("key" + i).equals(i);
+        }
+        System.out.println("size: " + map.size() + ", all found: " + allFound); // 100005, true
+
+        int seen = 0;
+        long sum = 0;
+        for (Entry<String, Integer> e : map) {
+            seen++;
+            sum += e.value;
+        }
+        System.out.println("iterated: " + seen + ", sum: " + sum); // 100005, 4999950014
+        System.out.println("getEntries().length: " + map.getEntries().length); // 100005
+
+        // the books count the same as with IntCountHashMap
+        for (String book : new String[] {"pg84.txt", "pride_and_prejudice.txt"}) {
+            AbstractHashMap<String, Integer> exact = TextAnalytics.countWords(new File(book), "probe");
+            AbstractHashMap<String, Integer> offHeap = TextAnalytics.countWords(new File(book), "offheap");
+            boolean same = exact.size() == offHeap.size();
+            EntryCursor<String, Integer> e = exact.cursor();
+            while (e.next()) {
+                same &= e.value().equals(offHeap.find(e.key()));
+            }
+            System.out.println(book + ": " + offHeap.size() + " words, same counts: " + same); // true
+        }
+
+        // resident bytes per key
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        System.out.println("Resident bytes per key, " + keys + " distinct words:");
+        footprint("chain (ObjectHashMap)", () -> new ObjectHashMap<>(.9), keys);
+        footprint("probe (IntCountHashMap)", () -> new IntCountHashMap<>(.5), keys);
+        footprint("offheap (OffHeapHashMap)", () -> new OffHeapHashMap(.5), keys);
+
+        System.out.println("Done");
+    }
+
+    /**
+     * Fills a new map with keys words and prints the heap and direct memory
+     * it keeps, divided by keys. The map is built from chars, the way
+     * TextAnalytics counts, so no key Strings are left over from the loop.
+     */
+    private static void footprint(String name, Supplier<AbstractHashMap<String, Integer>> maps, int keys) {
+        long heapBefore = usedHeap();
+
+        AbstractHashMap<String, Integer> map = maps.get();
+        char[] word = new char[12];
+        for (int i = 0; i < keys; i++) {
+            map.increment(word, 0, spell(i, word), 1);
+        }
+
+        long heap = usedHeap() - heapBefore;
+        long direct = map instanceof OffHeapHashMap ? ((OffHeapHashMap) map).offHeapBytes() : 0;
+        System.out.printf("  %-26s heap %6.1f  direct %6.1f  total %6.1f%n", name,
+                          (double) heap / keys, (double) direct / keys, (double) (heap + direct) / keys);
+        if (map.size() != keys) {
+            System.out.println("  wrong size: " + map.size());
+        }
+    }
+
+    /**
+     * Writes a distinct lower-case word for i (base 26, at least 5 letters,
+     * like English words) into word.
+     * @return its length
+     */
+    private static int spell(int i, char[] word) {
+        int length = 0;
+        do {
+            word[length++] = (char) ('a' + i % 26);
+            i /= 26;
+        } while (i > 0);
+        while (length < 5) {
+            word[length++] = 'a';
+        }
+        return length;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
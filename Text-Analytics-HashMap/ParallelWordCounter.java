@@ -0,0 +1,278 @@
+/**
+ * ParallelWordCounter.java
+ * Counts the words of a (possibly very large) Gutenberg text with several
+ * threads.
+ *
+ * The file is memory-mapped instead of read through a Scanner. After the
+ * START marker line, the body is cut into chunks at line boundaries, each
+ * chunk is tokenized into its own map by a worker thread, and the maps are
+ * merged in file order up to the chunk that holds the END marker.
+ * Each worker runs its own copy of the normalization chain, if any.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ParallelWordCounter {
+
+    // A single mapping must stay below 2GB; chunks are kept well under that
+    private static final long MAX_CHUNK = 1L << 30;
+    private static final int WINDOW = 1 << 26;
+
+    /**
+     * Counts the words between the Gutenberg START and END markers.
+     * @param file the book
+     * @param mapKind map implementation for the per-chunk and merged maps
+     *                (see TextAnalytics.newWordMap)
+     * @param hashing hash strategy for those maps
+     * @param threads number of worker threads
+     * @return the merged word map, or null if the file has no START marker
+     */
+    public static AbstractHashMap<String, Integer> count(File file, String mapKind, HashStrategy hashing, int threads)
+        throws IOException {
+        return count(file, mapKind, hashing, threads, null);
+    }
+
+    /**
+     * count() with every word run through normalizer (null for none).
+     * Stage timings of the counted chunks are added to normalizer's.
+     */
+    public static AbstractHashMap<String, Integer> count(File file, String mapKind, HashStrategy hashing, int threads,
+                                                         NormalizerChain normalizer)
+        throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            long bodyStart = findBodyStart(channel, size);
+            if (bodyStart < 0) {
+                return null;
+            }
+
+            long[] bounds = chunkBounds(channel, bodyStart, size, threads);
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<ChunkResult>> results = new ArrayList<>();
+                for (int i = 0; i + 1 < bounds.length; i++) {
+                    MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY,
+                                                         bounds[i], bounds[i + 1] - bounds[i]);
+                    NormalizerChain chain = normalizer == null ? null : normalizer.copy();
+                    results.add(pool.submit(new ChunkCounter(chunk, mapKind, hashing, chain)));
+                }
+
+                // O(n): merging touches every distinct word of every chunk once
+                AbstractHashMap<String, Integer> merged = null;
+                for (Future<ChunkResult> future : results) {
+                    ChunkResult result = future.get();
+                    if (normalizer != null) {
+                        normalizer.addTiming(result.normalizer);
+                    }
+                    if (merged == null) {
+                        merged = result.words;
+                    } else {
+                        merged.addAll(result.words);
+                    }
+
+                    // chunks after the END marker are the license text
+                    if (result.reachedEnd) {
+                        break;
+                    }
+                }
+                return merged;
+            } catch (InterruptedException err) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while counting " + file, err);
+            } catch (ExecutionException err) {
+                if (err.getCause() instanceof IOException) {
+                    throw (IOException) err.getCause();
+                }
+                throw new IOException("Counting failed for " + file, err.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    // Helper methods
+
+    /**
+     * Scans lines from the start of the file for the START marker.
+     * @return offset of the line after the marker, or -1 if there is none
+     */
+    private static long findBodyStart(FileChannel channel, long size) throws IOException {
+        long windowStart = 0;
+
+        while (windowStart < size) {
+            int windowSize = (int) Math.min(size - windowStart, WINDOW);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+
+            int lineStart = 0;
+            for (int i = 0; i < windowSize; i++) {
+                byte b = window.get(i);
+                if (b == '\n' || b == '\r') {
+                    if (hasMarker(window, lineStart, i)) {
+                        return windowStart + i + 1;
+                    }
+                    lineStart = i + 1;
+                }
+            }
+
+            if (windowStart + windowSize == size) {
+                // last line has no terminator
+                return hasMarker(window, lineStart, windowSize) ? size : -1;
+            }
+            if (lineStart == 0) {
+                throw new IOException("Line longer than " + WINDOW + " bytes before START marker");
+            }
+            windowStart += lineStart; // re-map from the unfinished line
+        }
+        return -1;
+    }
+
+    /**
+     * ASCII case-insensitive search of window[from..to) for a START marker.
+     */
+    private static boolean hasMarker(ByteBuffer window, int from, int to) {
+        for (String marker : WordTokenizer.START_MARKERS) {
+            for (int i = from; i + marker.length() <= to; i++) {
+                int k = 0;
+                while (k < marker.length()) {
+                    int b = window.get(i + k);
+                    if (b >= 'A' && b <= 'Z') b += 'a' - 'A';
+                    if (b != marker.charAt(k)) break;
+                    k++;
+                }
+                if (k == marker.length()) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cuts [start, size) into roughly equal chunks, moving every cut to just
+     * after a '\n' so that no line (and no UTF-8 sequence) is split.
+     * @return the chunk boundaries, first = start and last = size
+     */
+    private static long[] chunkBounds(FileChannel channel, long start, long size, int threads)
+        throws IOException {
+        int chunks = (int) Math.max(threads, (size - start) / MAX_CHUNK + 1);
+        long[] bounds = new long[chunks + 1];
+        int n = 0;
+        bounds[n++] = start;
+
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        for (int k = 1; k < chunks; k++) {
+            long cut = Math.max(start + (size - start) * k / chunks, bounds[n - 1]);
+            cut = nextLineStart(channel, cut, size, probe);
+            if (cut > bounds[n - 1] && cut < size) {
+                bounds[n++] = cut;
+            }
+        }
+        bounds[n++] = size;
+
+        long[] trimmed = new long[n];
+        System.arraycopy(bounds, 0, trimmed, 0, n);
+        return trimmed;
+    }
+
+    /**
+     * @return offset just after the first '\n' at or after pos (or size)
+     */
+    private static long nextLineStart(FileChannel channel, long pos, long size, ByteBuffer probe)
+        throws IOException {
+        while (pos < size) {
+            probe.clear();
+            int n = channel.read(probe, pos);
+            if (n <= 0) break;
+
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n') return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    /**
+     * Words of one chunk, and whether the chunk ended at the END marker.
+     */
+    private static class ChunkResult {
+        final AbstractHashMap<String, Integer> words;
+        final boolean reachedEnd;
+        final NormalizerChain normalizer;
+
+        ChunkResult(AbstractHashMap<String, Integer> words, boolean reachedEnd, NormalizerChain normalizer) {
+            this.words = words;
+            this.reachedEnd = reachedEnd;
+            this.normalizer = normalizer;
+        }
+    }
+
+    /**
+     * Tokenizes one mapped chunk into a map owned by the worker thread.
+     */
+    private static class ChunkCounter implements Callable<ChunkResult> {
+        private final ByteBuffer chunk;
+        private final String mapKind;
+        private final HashStrategy hashing;
+        private final NormalizerChain normalizer;
+
+        ChunkCounter(ByteBuffer chunk, String mapKind, HashStrategy hashing, NormalizerChain normalizer) {
+            this.chunk = chunk;
+            this.mapKind = mapKind;
+            this.hashing = hashing;
+            this.normalizer = normalizer;
+        }
+
+        @Override
+        public ChunkResult call() throws IOException {
+            AbstractHashMap<String, Integer> words = TextAnalytics.newWordMap(mapKind, hashing);
+            WordTokenizer tokens = new WordTokenizer(
+                new InputStreamReader(new BufferInputStream(chunk), StandardCharsets.UTF_8));
+            tokens.setNormalizer(normalizer);
+
+            while (tokens.next()) {
+                words.increment(tokens.wordChars(), 0, tokens.wordLength(), 1);
+            }
+            return new ChunkResult(words, tokens.reachedEndMarker(), normalizer);
+        }
+    }
+
+    /**
+     * Reads a mapped region as an InputStream (no copy of the whole chunk).
+     */
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) return -1;
+
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+// ParallelWordCounterTest.java
+// Counts small generated books with ParallelWordCounter at 1 to 64 threads
+// and compares the merged counts with single-threaded TextAnalytics counting.
+// The books have words before the START marker and after the END marker
+// (which must not be counted), a line much longer than a chunk (so cuts fall
+// inside words and must move to the next line), CRLF line ends, and an END
+// marker early in the body, so later chunks hold only license text.
+// Then the same check on the bundled books, and books without a body.
+// Usage: java ParallelWordCounterTest
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class ParallelWordCounterTest {
+
+    private static final int[] THREADS = {1, 2, 3, 5, 8, 16, 64};
+
+    public static void main(String[] args) throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            body.append("Line ").append(i % 17).append(" of the Café, tale number ").append(words(i)).append('\n');
+        }
+        StringBuilder longLine = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            longLine.append("supercalifragilistic").append(i % 3 == 0 ? " " : "-");
+        }
+
+        String preface = "Preface words: prefaceonly prefaceonly\n";
+        String license = "licenseonly words after the end\n";
+        String[] books = {
+            // markers in the usual places
+            preface + "*** START OF THE PROJECT GUTENBERG EBOOK TEST ***\n" + body
+                + longLine + "\n" + body + "*** END OF THE PROJECT GUTENBERG EBOOK TEST ***\n" + license.repeat(200),
+            // old marker spelling, CRLF lines
+            (preface + "*** Start of this Project Gutenberg eBook test ***\n" + body + longLine + "\n"
+                + "*** End of this Project Gutenberg eBook test ***\n" + license.repeat(50)).replace("\n", "\r\n"),
+            // END near the start: every later chunk is license text
+            preface + "*** START OF THE PROJECT GUTENBERG EBOOK TEST ***\nonly these words\n"
+                + "*** END OF THE PROJECT GUTENBERG EBOOK TEST ***\n" + license.repeat(500),
+            // no END marker, last line without a line break
+            "*** START OF THE PROJECT GUTENBERG EBOOK TEST ***\n" + body + "last words"
+        };
+
+        File file = File.createTempFile("book", ".txt");
+        file.deleteOnExit();
+        for (int b = 0; b < books.length; b++) {
+            Files.write(file.toPath(), books[b].getBytes(StandardCharsets.UTF_8));
+            AbstractHashMap<String, Integer> expected = TextAnalytics.countWords(file, "probe");
+            System.out.println("book " + b + ": " + expected.size() + " words, prefaceonly "
+                               + expected.find("prefaceonly") + ", licenseonly " + expected.find("licenseonly")
+                               + ", same counts at 1-64 threads: " + sameAtAllThreads(file, expected));
+        }
+        // expect null, null, true for each
+
+        for (String book : new String[] {"pg84.txt", "pride_and_prejudice.txt"}) {
+            AbstractHashMap<String, Integer> expected = TextAnalytics.countWords(new File(book), "probe");
+            System.out.println(book + ": same counts at 1-64 threads: "
+                               + sameAtAllThreads(new File(book), expected)); // true
+        }
+
+        Files.write(file.toPath(), "no marker here\njust words\n".getBytes(StandardCharsets.UTF_8));
+        boolean noStart = ParallelWordCounter.count(file, "probe", HashStrategy.MIXED, 4) == null;
+        Files.write(file.toPath(), "words\n*** START OF THE PROJECT GUTENBERG EBOOK TEST ***"
+                    .getBytes(StandardCharsets.UTF_8));
+        AbstractHashMap<String, Integer> empty = ParallelWordCounter.count(file, "probe", HashStrategy.MIXED, 4);
+        System.out.println("no START marker gives null: " + noStart + ", START on the last line: "
+                           + (empty == null ? "null" : empty.size() + " words")); // true, 0 words
+        System.out.println("Done");
+    }
+
+    /**
+     * @return True if ParallelWordCounter at every THREADS count gives
+     *         exactly the expected counts
+     */
+    private static boolean sameAtAllThreads(File file, AbstractHashMap<String, Integer> expected)
+        throws IOException {
+        for (String mapKind : new String[] {"probe", "chain"}) {
+            for (int threads : THREADS) {
+                AbstractHashMap<String, Integer> merged = ParallelWordCounter.count(file, mapKind,
+                                                                                    HashStrategy.MIXED, threads);
+                if (merged == null || merged.size() != expected.size()) return false;
+                EntryCursor<String, Integer> word = expected.cursor();
+                while (word.next()) {
+                    Integer count = merged.find(word.key());
+                    if (count == null || count != word.count()) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static String words(int i) {
+        String[] pool = {"alpha", "beta", "gamma", "it's", "don't", "x-ray", "naïve", "end", "start"};
+        return pool[i % pool.length] + " " + pool[(i * 7) % pool.length];
+    }
+}
@@ -0,0 +1,341 @@
+/**
+ * PorterStemmer.java
+ * The Porter (1980) suffix-stripping stemmer, working in place on the
+ * tokenizer's char[] word buffer.
+ *
+ * Follows Martin Porter's reference implementation step for step, so
+ * "connected", "connecting" and "connection" all count as "connect".
+ * A stem is never longer than its word, and words of one or two letters
+ * are left alone. The word being stemmed is held in fields, so one
+ * instance must not be shared between threads (see copy()).
+ */
+
+public class PorterStemmer implements WordNormalizer {
+
+    private char[] b;   // the word is b[0..k]
+    private int k;
+    private int j;      // end of the stem once ends() has matched a suffix
+
+    /**
+     * Stems word[0..length) in place.
+     * @return the length of the stem (never 0 for a non-empty word)
+     */
+    @Override
+    public int normalize(char[] word, int length) {
+        if (length <= 2) return length;
+
+        b = word;
+        k = length - 1;
+        step1ab();
+        if (k > 0) {
+            step1c();
+            step2();
+            step3();
+            step4();
+            step5();
+        }
+        b = null;
+        return k + 1;
+    }
+
+    /**
+     * Convenience for queries and tests.
+     */
+    public String stem(String word) {
+        char[] chars = word.toCharArray();
+        return new String(chars, 0, normalize(chars, chars.length));
+    }
+
+    @Override
+    public String name() {
+        return "stem";
+    }
+
+    @Override
+    public WordNormalizer copy() {
+        return new PorterStemmer();
+    }
+
+    // Helper methods
+
+    /**
+     * @return true if b[i] is a consonant ('y' is one after a vowel or at the start)
+     */
+    private boolean cons(int i) {
+        switch (b[i]) {
+            case 'a': case 'e': case 'i': case 'o': case 'u':
+                return false;
+            case 'y':
+                return i == 0 || !cons(i - 1);
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * m, the number of vowel-consonant sequences in b[0..j]:
+     * [C](VC)^m[V]
+     */
+    private int m() {
+        int n = 0;
+        int i = 0;
+        while (true) {
+            if (i > j) return n;
+            if (!cons(i)) break;
+            i++;
+        }
+        i++;
+        while (true) {
+            while (true) {
+                if (i > j) return n;
+                if (cons(i)) break;
+                i++;
+            }
+            i++;
+            n++;
+            while (true) {
+                if (i > j) return n;
+                if (!cons(i)) break;
+                i++;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * @return true if b[0..j] contains a vowel
+     */
+    private boolean vowelInStem() {
+        for (int i = 0; i <= j; i++) {
+            if (!cons(i)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if b[i-1..i] is a double consonant
+     */
+    private boolean doubleCons(int i) {
+        return i >= 1 && b[i] == b[i - 1] && cons(i);
+    }
+
+    /**
+     * @return true if b[i-2..i] is consonant-vowel-consonant and the last
+     *         consonant is not w, x or y ("hop" but not "snow")
+     */
+    private boolean cvc(int i) {
+        if (i < 2 || !cons(i) || cons(i - 1) || !cons(i - 2)) return false;
+        char c = b[i];
+        return c != 'w' && c != 'x' && c != 'y';
+    }
+
+    /**
+     * @return true if b[0..k] ends with s; then j is the end of the stem before it
+     */
+    private boolean ends(String s) {
+        int length = s.length();
+        int o = k - length + 1;
+        if (o < 0) return false;
+        for (int i = 0; i < length; i++) {
+            if (b[o + i] != s.charAt(i)) return false;
+        }
+        j = k - length;
+        return true;
+    }
+
+    /**
+     * Replaces b[j+1..k] with s. s is never longer than the suffix it
+     * replaces plus the ending removed just before, so b has room.
+     */
+    private void setTo(String s) {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            b[j + 1 + i] = s.charAt(i);
+        }
+        k = j + length;
+    }
+
+    private void replace(String s) {
+        if (m() > 0) setTo(s);
+    }
+
+    /**
+     * Plurals and -ed or -ing: caresses -> caress, ponies -> poni,
+     * cats -> cat, agreed -> agree, plastered -> plaster, motoring -> motor,
+     * hopping -> hop, filing -> file.
+     */
+    private void step1ab() {
+        if (b[k] == 's') {
+            if (ends("sses")) {
+                k -= 2;
+            } else if (ends("ies")) {
+                setTo("i");
+            } else if (b[k - 1] != 's') {
+                k--;
+            }
+        }
+        if (ends("eed")) {
+            if (m() > 0) k--;
+        } else if ((ends("ed") || ends("ing")) && vowelInStem()) {
+            k = j;
+            if (ends("at")) {
+                setTo("ate");
+            } else if (ends("bl")) {
+                setTo("ble");
+            } else if (ends("iz")) {
+                setTo("ize");
+            } else if (doubleCons(k)) {
+                k--;
+                char c = b[k];
+                if (c == 'l' || c == 's' || c == 'z') k++;
+            } else if (m() == 1 && cvc(k)) {
+                setTo("e");
+            }
+        }
+    }
+
+    /**
+     * Terminal y to i when there is another vowel in the stem: happy -> happi.
+     */
+    private void step1c() {
+        if (ends("y") && vowelInStem()) b[k] = 'i';
+    }
+
+    /**
+     * Double suffixes to single ones: relational -> relate, digitizer -> digitize.
+     */
+    private void step2() {
+        switch (b[k - 1]) {
+            case 'a':
+                if (ends("ational")) { replace("ate"); break; }
+                if (ends("tional")) { replace("tion"); break; }
+                break;
+            case 'c':
+                if (ends("enci")) { replace("ence"); break; }
+                if (ends("anci")) { replace("ance"); break; }
+                break;
+            case 'e':
+                if (ends("izer")) { replace("ize"); break; }
+                break;
+            case 'l':
+                if (ends("bli")) { replace("ble"); break; }
+                if (ends("alli")) { replace("al"); break; }
+                if (ends("entli")) { replace("ent"); break; }
+                if (ends("eli")) { replace("e"); break; }
+                if (ends("ousli")) { replace("ous"); break; }
+                break;
+            case 'o':
+                if (ends("ization")) { replace("ize"); break; }
+                if (ends("ation")) { replace("ate"); break; }
+                if (ends("ator")) { replace("ate"); break; }
+                break;
+            case 's':
+                if (ends("alism")) { replace("al"); break; }
+                if (ends("iveness")) { replace("ive"); break; }
+                if (ends("fulness")) { replace("ful"); break; }
+                if (ends("ousness")) { replace("ous"); break; }
+                break;
+            case 't':
+                if (ends("aliti")) { replace("al"); break; }
+                if (ends("iviti")) { replace("ive"); break; }
+                if (ends("biliti")) { replace("ble"); break; }
+                break;
+            case 'g':
+                if (ends("logi")) { replace("log"); break; }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * -ic-, -full, -ness etc.: triplicate -> triplic, hopeful -> hope.
+     */
+    private void step3() {
+        switch (b[k]) {
+            case 'e':
+                if (ends("icate")) { replace("ic"); break; }
+                if (ends("ative")) { replace(""); break; }
+                if (ends("alize")) { replace("al"); break; }
+                break;
+            case 'i':
+                if (ends("iciti")) { replace("ic"); break; }
+                break;
+            case 'l':
+                if (ends("ical")) { replace("ic"); break; }
+                if (ends("ful")) { replace(""); break; }
+                break;
+            case 's':
+                if (ends("ness")) { replace(""); break; }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Removes -ant, -ence etc. when m > 1: revival -> reviv, adoption -> adopt.
+     */
+    private void step4() {
+        switch (b[k - 1]) {
+            case 'a':
+                if (ends("al")) break;
+                return;
+            case 'c':
+                if (ends("ance")) break;
+                if (ends("ence")) break;
+                return;
+            case 'e':
+                if (ends("er")) break;
+                return;
+            case 'i':
+                if (ends("ic")) break;
+                return;
+            case 'l':
+                if (ends("able")) break;
+                if (ends("ible")) break;
+                return;
+            case 'n':
+                if (ends("ant")) break;
+                if (ends("ement")) break;
+                if (ends("ment")) break;
+                if (ends("ent")) break;
+                return;
+            case 'o':
+                if (ends("ion") && j >= 0 && (b[j] == 's' || b[j] == 't')) break;
+                if (ends("ou")) break;
+                return;
+            case 's':
+                if (ends("ism")) break;
+                return;
+            case 't':
+                if (ends("ate")) break;
+                if (ends("iti")) break;
+                return;
+            case 'u':
+                if (ends("ous")) break;
+                return;
+            case 'v':
+                if (ends("ive")) break;
+                return;
+            case 'z':
+                if (ends("ize")) break;
+                return;
+            default:
+                return;
+        }
+        if (m() > 1) k = j;
+    }
+
+    /**
+     * Final -e and -ll: probate -> probat, rate -> rate, controll -> control.
+     */
+    private void step5() {
+        j = k;
+        if (b[k] == 'e') {
+            int a = m();
+            if (a > 1 || a == 1 && !cvc(k - 1)) k--;
+        }
+        if (b[k] == 'l' && doubleCons(k) && m() > 1) k--;
+    }
+}
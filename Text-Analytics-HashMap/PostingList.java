@@ -0,0 +1,117 @@
+/**
+ * PostingList.java
+ * The (docId, count) postings of one word, compressed in a byte array.
+ *
+ * Postings are appended in increasing docId order, so each is stored as
+ * the gap to the previous docId followed by the count, both as varints
+ * (7 bits a byte, high bit set on all but the last byte). A word found in
+ * consecutive documents with small counts costs 2 bytes a posting instead
+ * of 8 for two ints.
+ *
+ * Document frequency and total count are kept uncompressed, so they are
+ * answered without decoding anything.
+ */
+
+import java.util.Arrays;
+
+public class PostingList {
+
+    private byte[] data = new byte[4];
+    private int length;
+    private int lastDocId = -1;
+    private int documentFrequency;
+    private long totalCount;
+
+    /**
+     * Appends a posting.
+     * @param docId must be greater than every docId added before
+     * @param count occurrences of the word in that document (at least 1)
+     */
+    public void add(int docId, int count) {
+        if (docId <= lastDocId) {
+            throw new IllegalArgumentException("docId " + docId + " after " + lastDocId);
+        }
+        writeVarint(docId - lastDocId - 1);
+        writeVarint(count);
+        lastDocId = docId;
+        documentFrequency++;
+        totalCount += count;
+    }
+
+    /**
+     * @return the number of documents the word occurs in
+     */
+    public int documentFrequency() {
+        return documentFrequency;
+    }
+
+    /**
+     * @return the number of times the word occurs in all documents
+     */
+    public long totalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return bytes used by the encoded postings
+     */
+    public int encodedBytes() {
+        return length;
+    }
+
+    /**
+     * Decodes the postings. O(documentFrequency).
+     * @return {docIds, counts}, in increasing docId order
+     */
+    public int[][] decode() {
+        int[] docIds = new int[documentFrequency];
+        int[] counts = new int[documentFrequency];
+        int docId = -1;
+        int pos = 0;
+
+        for (int i = 0; i < documentFrequency; i++) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                value |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            docId += value + 1;
+            docIds[i] = docId;
+
+            value = 0;
+            shift = 0;
+            do {
+                b = data[pos++];
+                value |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            counts[i] = value;
+        }
+        return new int[][] {docIds, counts};
+    }
+
+    /**
+     * Releases the unused end of the buffer once no more postings will come.
+     */
+    public void trim() {
+        if (data.length > length) {
+            data = Arrays.copyOf(data, length);
+        }
+    }
+
+    // Helper methods
+
+    private void writeVarint(int value) {
+        if (length + 5 > data.length) {
+            data = Arrays.copyOf(data, Math.max(2 * data.length, length + 5));
+        }
+        while ((value & ~0x7f) != 0) {
+            data[length++] = (byte) (value & 0x7f | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+}
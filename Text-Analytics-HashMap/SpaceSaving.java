@@ -0,0 +1,246 @@
+/**
+ * SpaceSaving.java
+ * Finds the most frequent words of a stream with a fixed number of counters
+ * (the Space-Saving algorithm of Metwally, Agrawal and El Abbadi, 2005).
+ *
+ * Each counter holds a word, its count and an error. A monitored word adds
+ * to its counter; a new word takes over the counter with the smallest
+ * count c, starting at c + its count with error c. So a counter's count
+ * overestimates its word's true count by at most its error, which is at
+ * most total / capacity, and every word occurring more than that is
+ * guaranteed to hold a counter.
+ *
+ * The counters form a min-heap on count, and an ObjectHashMap finds a
+ * word's counter: O(log capacity) per word, memory fixed by capacity.
+ *
+ * Two summaries merge as in "Mergeable Summaries" (Agarwal et al., 2012):
+ * a word's counts and errors add, a side that does not monitor the word
+ * adds its maxError() to both, and the largest capacity counters are kept.
+ * The bounds above then hold for the combined stream.
+ */
+
+import java.util.Arrays;
+
+public class SpaceSaving {
+
+    private final int capacity;
+    private final Counter[] heap;
+    private int size;
+    private ObjectHashMap<String, Counter> index;
+    // most an unmonitored word can have occurred (only non-zero after a merge)
+    private int floor;
+
+    /**
+     * One monitored word.
+     */
+    private static class Counter {
+        String word;
+        int count;
+        int error;
+        int position; // in heap
+    }
+
+    /**
+     * @param capacity number of counters, e.g. 1000
+     */
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.heap = new Counter[capacity];
+        this.index = new ObjectHashMap<>(.75);
+    }
+
+    /**
+     * Adds count occurrences of the word in chars[offset..offset+length).
+     * The String is only created when the word takes over a counter.
+     */
+    public void add(char[] chars, int offset, int length, int count) {
+        Counter c = index.find(chars, offset, length);
+        if (c != null) {
+            c.count += count;
+            siftDown(c.position);
+        } else {
+            monitor(new String(chars, offset, length), count);
+        }
+    }
+
+    /**
+     * Adds count occurrences of word.
+     */
+    public void add(String word, int count) {
+        Counter c = index.find(word);
+        if (c != null) {
+            c.count += count;
+            siftDown(c.position);
+        } else {
+            monitor(word, count);
+        }
+    }
+
+    /**
+     * @return word's count (an overestimate by at most error(word)), or 0
+     *         if the word holds no counter
+     */
+    public int count(Object word) {
+        Counter c = index.find(word);
+        return c == null ? 0 : c.count;
+    }
+
+    /**
+     * @return how much count(word) may overestimate, or 0 if unmonitored
+     */
+    public int error(Object word) {
+        Counter c = index.find(word);
+        return c == null ? 0 : c.error;
+    }
+
+    /**
+     * @return the largest possible overestimate of any count: the
+     *         smallest counter once all counters are in use, else 0
+     */
+    public int maxError() {
+        return size < capacity ? floor : heap[0].count;
+    }
+
+    /**
+     * @return the number of counters in use
+     */
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Merges other's counters into this summary, which then covers both
+     * streams. O((size + other.size) log) for sorting the union.
+     */
+    public void addAll(SpaceSaving other) {
+        int mine = maxError();
+        int theirs = other.maxError();
+
+        // the union of both summaries, counts and errors added
+        Counter[] union = new Counter[size + other.size];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            Counter c = heap[i];
+            Counter o = other.index.find(c.word);
+            c.count += o == null ? theirs : o.count;
+            c.error += o == null ? theirs : o.error;
+            union[n++] = c;
+        }
+        for (int i = 0; i < other.size; i++) {
+            Counter o = other.heap[i];
+            if (index.find(o.word) != null) continue;
+            Counter c = new Counter();
+            c.word = o.word;
+            c.count = o.count + mine;
+            c.error = o.error + mine;
+            union[n++] = c;
+        }
+
+        // keep the largest counts; a dropped word counts no more than the smallest kept
+        Arrays.sort(union, 0, n, (a, b) -> Integer.compare(b.count, a.count));
+        size = Math.min(n, capacity);
+        index = new ObjectHashMap<>(.75);
+        for (int i = 0; i < size; i++) {
+            heap[i] = union[i];
+            heap[i].position = i;
+            index.put(heap[i].word, heap[i]);
+        }
+        Arrays.fill(heap, size, capacity, null);
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+        floor = mine + theirs;
+    }
+
+    /**
+     * @return a cursor over the monitored (word, count) pairs, in heap order
+     */
+    public EntryCursor<String, Integer> cursor() {
+        return new EntryCursor<String, Integer>() {
+            private int i = -1;
+
+            @Override
+            public boolean next() {
+                return ++i < size;
+            }
+
+            @Override
+            public String key() {
+                return heap[i].word;
+            }
+
+            @Override
+            public Integer value() {
+                return heap[i].count;
+            }
+
+            @Override
+            public int count() {
+                return heap[i].count;
+            }
+        };
+    }
+
+    // Helper methods
+
+    /**
+     * Gives word a counter: a free one, or the smallest one's.
+     */
+    private void monitor(String word, int count) {
+        if (size < capacity) {
+            // a free counter, but after a merge the word may have been seen
+            Counter c = new Counter();
+            c.word = word;
+            c.count = floor + count;
+            c.error = floor;
+            c.position = size;
+            heap[size++] = c;
+            index.put(word, c);
+            siftUp(c.position);
+            return;
+        }
+
+        Counter c = heap[0];
+        index.remove(c.word);
+        c.error = c.count;
+        c.count += count;
+        c.word = word;
+        index.put(word, c);
+        siftDown(0);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (heap[parent].count <= heap[i].count) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) child++;
+            if (heap[child].count >= heap[i].count) break;
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        Counter tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+        heap[i].position = i;
+        heap[j].position = j;
+    }
+}
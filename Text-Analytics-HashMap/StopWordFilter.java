@@ -0,0 +1,230 @@
+/**
+ * StopWordFilter.java
+ * Drops stop words ("the", "and", "of", ...) using a perfect-hash set.
+ *
+ * The set is built once for a fixed word list with "hash and displace":
+ * every word's 64-bit hash picks a small bucket and two values f1, f2,
+ * and each bucket gets a displacement d chosen so that its words land on
+ * (f1 + d * f2) mod size without colliding with any word placed before.
+ * A lookup is one hash of the chars, one displacement read and one
+ * comparison against the single word that can be in that slot: no probe
+ * loop, no String, no allocation.
+ *
+ * Stop words are matched as the tokenizer produces words: lowercase
+ * a-z only, so contractions appear without their apostrophe ("dont").
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+public class StopWordFilter implements WordNormalizer {
+
+    // English stop words (the common NLTK list, written as the tokenizer sees them)
+    public static final String[] ENGLISH = {
+        "i", "me", "my", "myself", "we", "our", "ours", "ourselves", "you", "your", "yours",
+        "yourself", "yourselves", "he", "him", "his", "himself", "she", "her", "hers", "herself",
+        "it", "its", "itself", "they", "them", "their", "theirs", "themselves", "what", "which",
+        "who", "whom", "this", "that", "these", "those", "am", "is", "are", "was", "were", "be",
+        "been", "being", "have", "has", "had", "having", "do", "does", "did", "doing", "a", "an",
+        "the", "and", "but", "if", "or", "because", "as", "until", "while", "of", "at", "by",
+        "for", "with", "about", "against", "between", "into", "through", "during", "before",
+        "after", "above", "below", "to", "from", "up", "down", "in", "out", "on", "off", "over",
+        "under", "again", "further", "then", "once", "here", "there", "when", "where", "why",
+        "how", "all", "any", "both", "each", "few", "more", "most", "other", "some", "such", "no",
+        "nor", "not", "only", "own", "same", "so", "than", "too", "very", "can", "will", "just",
+        "dont", "should", "now"
+    };
+
+    private final String name;
+    private final int size;          // slots, a power of two
+    private final char[][] slots;    // the word in each slot, or null
+    private final int[] displacements;
+    private final int maxLength;
+
+    /**
+     * Builds the set. O(n) expected; duplicates are ignored.
+     * @param name the stage name
+     * @param words lowercase words of letters a-z
+     */
+    public StopWordFilter(String name, String... words) {
+        this.name = name;
+        Set<String> distinct = new LinkedHashSet<>(Arrays.asList(words));
+        String[] keys = distinct.toArray(new String[0]);
+
+        int longest = 0;
+        for (String key : keys) longest = Math.max(longest, key.length());
+        maxLength = longest;
+
+        // two slots per word keeps displacements small; grow if a bucket cannot be placed
+        int n = Math.max(1, keys.length);
+        int slotCount = Integer.highestOneBit(2 * n - 1) << 1;
+        while (true) {
+            int buckets = Math.max(1, slotCount / 8);
+            char[][] table = new char[slotCount][];
+            int[] shift = new int[buckets];
+            if (place(keys, table, shift)) {
+                size = slotCount;
+                slots = table;
+                displacements = shift;
+                return;
+            }
+            slotCount *= 2;
+        }
+    }
+
+    /**
+     * The built-in English list.
+     */
+    public static StopWordFilter english() {
+        return new StopWordFilter("stop", ENGLISH);
+    }
+
+    /**
+     * Reads one stop word per line; blank lines and lines starting with '#'
+     * are skipped. Words are lowercased and stripped of anything but a-z,
+     * as the tokenizer does.
+     */
+    public static StopWordFilter load(File file) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+                                                                          StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String word = line.toLowerCase().replaceAll("[^a-z]", "");
+                if (!word.isEmpty()) words.add(word);
+            }
+        }
+        return new StopWordFilter("stop:" + file.getPath(), words.toArray(new String[0]));
+    }
+
+    /**
+     * @return 0 if word[0..length) is a stop word, else length
+     */
+    @Override
+    public int normalize(char[] word, int length) {
+        return contains(word, length) ? 0 : length;
+    }
+
+    /**
+     * O(length): one hash and at most one comparison.
+     */
+    public boolean contains(char[] word, int length) {
+        if (length > maxLength) return false;
+
+        long h = hash(word, length);
+        char[] candidate = slots[slot(h, displacements[bucket(h, displacements.length)]) & (size - 1)];
+        if (candidate == null || candidate.length != length) return false;
+
+        for (int i = 0; i < length; i++) {
+            if (candidate[i] != word[i]) return false;
+        }
+        return true;
+    }
+
+    public boolean contains(String word) {
+        return contains(word.toCharArray(), word.length());
+    }
+
+    /**
+     * @return the number of slots in the table (at least twice the words)
+     */
+    public int tableSize() {
+        return size;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    // Helper methods
+
+    /**
+     * Assigns a displacement to every bucket, largest buckets first.
+     * @return false if some bucket found no free displacement
+     */
+    private static boolean place(String[] keys, char[][] table, int[] shift) {
+        int buckets = shift.length;
+        int mask = table.length - 1;
+
+        List<List<char[]>> members = new ArrayList<>();
+        for (int b = 0; b < buckets; b++) members.add(new ArrayList<>());
+        for (String key : keys) {
+            char[] chars = key.toCharArray();
+            members.get(bucket(hash(chars, chars.length), buckets)).add(chars);
+        }
+
+        Integer[] order = new Integer[buckets];
+        for (int b = 0; b < buckets; b++) order[b] = b;
+        Arrays.sort(order, (x, y) -> members.get(y).size() - members.get(x).size());
+
+        int[] taken = new int[members.isEmpty() ? 0 : members.get(order[0]).size()];
+        for (int b : order) {
+            List<char[]> words = members.get(b);
+            if (words.isEmpty()) break;
+
+            boolean placed = false;
+            // d * f2 walks every slot for one word (f2 is odd), so table.length tries are enough
+            for (int d = 0; d < table.length && !placed; d++) {
+                placed = true;
+                for (int i = 0; i < words.size() && placed; i++) {
+                    char[] w = words.get(i);
+                    int s = slot(hash(w, w.length), d) & mask;
+                    if (table[s] != null) placed = false;
+                    for (int k = 0; k < i && placed; k++) {
+                        if (taken[k] == s) placed = false;
+                    }
+                    taken[i] = s;
+                }
+                if (placed) {
+                    shift[b] = d;
+                    for (int i = 0; i < words.size(); i++) table[taken[i]] = words.get(i);
+                }
+            }
+            if (!placed) return false;
+        }
+        return true;
+    }
+
+    /**
+     * (f1 + d * f2), masked by the caller; f2 is odd.
+     */
+    private static int slot(long h, int d) {
+        int f1 = (int) h;
+        int f2 = (int) (h >>> 32) | 1;
+        return f1 + d * f2;
+    }
+
+    private static int bucket(long h, int buckets) {
+        return (int) ((h >>> 17) % buckets);
+    }
+
+    /**
+     * FNV-1a over the chars, then the MurmurHash3 64-bit finalizer so all
+     * bits of the result depend on every char.
+     */
+    private static long hash(char[] word, int length) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            h ^= word[i];
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
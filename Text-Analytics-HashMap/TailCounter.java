@@ -0,0 +1,195 @@
+/**
+ * TailCounter.java
+ * Keeps the word counts and top K of a growing text file (a log, a
+ * transcript) up to date by reading only what was appended.
+ *
+ * The counter remembers how many bytes of the file it has counted. Each
+ * update() reads from there to the current end of the file, counts the
+ * words of the complete lines it finds into the same map, and moves the
+ * offset past the last line terminator; a partly written last line is
+ * left for the next update. Work per update is proportional to the new
+ * bytes, not to the file.
+ *
+ * The top K is refreshed from the words of the new lines alone: counts
+ * only grow, so a word that was not in the top K and did not occur again
+ * cannot have overtaken one that was.
+ *
+ * Unlike a book, the file is counted from its first byte (logs have no
+ * Gutenberg START marker); counting still stops for good at an END
+ * marker line. If the file shrinks (truncated or rotated), counting
+ * starts over on a new map.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+public class TailCounter {
+
+    private final File file;
+    private final String mapKind;
+    private final HashStrategy hashing;
+    private final int k;
+
+    private AbstractHashMap<String, Integer> wordMap;
+    private Entry<String, Integer>[] top = newTop();
+    private long offset;
+    private boolean ended;
+
+    private byte[] buf = new byte[1 << 16];
+
+    /**
+     * @param file the file to follow; it does not have to exist yet
+     * @param mapKind map implementation, as for TextAnalytics.newWordMap()
+     * @param k how many of the most frequent words to keep track of
+     */
+    public TailCounter(File file, String mapKind, HashStrategy hashing, int k) {
+        this.file = file;
+        this.mapKind = mapKind;
+        this.hashing = hashing;
+        this.k = k;
+        this.wordMap = TextAnalytics.newWordMap(mapKind, hashing);
+    }
+
+    /**
+     * Counts the complete lines appended since the last update.
+     * O(b) for b new bytes, plus O(w log k) for the w distinct words in them.
+     * @return the number of words counted (0 if the file has not grown)
+     */
+    public long update() throws IOException {
+        long length = file.length();
+        if (length < offset) {
+            // truncated or replaced: the old counts no longer describe it
+            wordMap = TextAnalytics.newWordMap(mapKind, hashing);
+            top = newTop();
+            offset = 0;
+            ended = false;
+        }
+        if (ended || length == offset) {
+            return 0;
+        }
+
+        long words = 0;
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(offset);
+            long end = in.length();
+
+            while (offset < end) {
+                int n = (int) Math.min(buf.length, end - offset);
+                in.readFully(buf, 0, n);
+
+                // stop after the last line terminator ('\n' is never part of
+                // a multi-byte UTF-8 character)
+                int lines = n;
+                while (lines > 0 && buf[lines - 1] != '\n' && buf[lines - 1] != '\r') {
+                    lines--;
+                }
+                if (lines == 0) {
+                    if (n < buf.length) break; // a partly written line
+                    buf = new byte[buf.length * 2]; // a line longer than buf
+                    in.seek(offset);
+                    continue;
+                }
+
+                words += countLines(lines);
+                offset += lines;
+                in.seek(offset);
+                if (ended) break;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * @return the k most frequent words after the last update, most frequent first
+     */
+    public Entry<String, Integer>[] top() {
+        return top;
+    }
+
+    public AbstractHashMap<String, Integer> wordMap() {
+        return wordMap;
+    }
+
+    /**
+     * @return how many bytes of the file have been counted
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * @return true once an END marker line has stopped the counting
+     */
+    public boolean ended() {
+        return ended;
+    }
+
+    // Helper methods
+
+    private static Entry<String, Integer>[] newTop() {
+        return Entry.newArray(0);
+    }
+
+    /**
+     * Counts the words of buf[0..length) into wordMap, and refreshes top
+     * from its words. length ends with a line terminator.
+     */
+    private long countLines(int length) throws IOException {
+        WordTokenizer words = new WordTokenizer(new InputStreamReader(
+            new ByteArrayInputStream(buf, 0, length), StandardCharsets.UTF_8));
+
+        // this chunk's words, counted once each, then added to the totals
+        IntCountHashMap<String> added = new IntCountHashMap<>(.5);
+        long n = 0;
+        while (words.next()) {
+            added.increment(words.wordChars(), 0, words.wordLength(), 1);
+            n++;
+        }
+        ended = words.reachedEndMarker();
+
+        wordMap.addAll(added);
+        top = TopK.select(candidates(added), k);
+        return n;
+    }
+
+    /**
+     * The words that may now be in the top K, with their new totals: every
+     * word of the chunk, then the old top K words that were not in it.
+     */
+    private EntryCursor<String, Integer> candidates(IntCountHashMap<String> added) {
+        EntryCursor<String, Integer> chunk = added.cursor();
+        Entry<String, Integer>[] old = top;
+
+        return new EntryCursor<String, Integer>() {
+            private int i = -1; // into old, once chunk is done
+            private String key;
+
+            @Override
+            public boolean next() {
+                if (i < 0 && chunk.next()) {
+                    key = chunk.key();
+                    return true;
+                }
+                while (++i < old.length) {
+                    key = old[i].key;
+                    if (!added.containsKey(key)) return true;
+                }
+                return false;
+            }
+
+            @Override
+            public String key() {
+                return key;
+            }
+
+            @Override
+            public Integer value() {
+                return wordMap.find(key);
+            }
+        };
+    }
+}
@@ -0,0 +1,124 @@
+// TailCounterTest.java
+// Appends a book to a temporary file in uneven pieces (cutting lines and
+// words in half) and checks after every TailCounter.update() that the
+// counts and top 10 equal a full recount of the lines written so far.
+// The last part keeps appending 64 KB pieces to a growing file and prints
+// the time of one update next to a full recount: the update should stay
+// flat while the recount grows with the file.
+// Usage: java TailCounterTest [book.txt]
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+public class TailCounterTest {
+    public static void main(String[] args) throws IOException {
+        byte[] book = Files.readAllBytes(new File(args.length > 0 ? args[0] : "pg84.txt").toPath());
+        File log = File.createTempFile("tail", ".txt");
+        log.deleteOnExit();
+
+        TailCounter tail = new TailCounter(log, "chain", HashStrategy.MIXED, 10);
+        System.out.println("empty file: " + tail.update() + " words, top " + tail.top().length); // 0, 0
+
+        // pieces of 1..20000 bytes, so most end inside a line
+        Random random = new Random(84);
+        boolean allSame = true;
+        int updates = 0;
+        try (FileOutputStream out = new FileOutputStream(log)) {
+            for (int written = 0; written < book.length; ) {
+                int n = Math.min(book.length - written, 1 + random.nextInt(20000));
+                out.write(book, written, n);
+                written += n;
+                tail.update();
+                updates++;
+                allSame &= sameAsRecount(tail, book, (int) tail.offset());
+            }
+        }
+        System.out.println(updates + " updates, counted " + tail.offset() + " of " + book.length
+                           + " bytes, all equal to a recount: " + allSame); // true
+        System.out.println("stopped at END marker: " + tail.ended()); // true
+
+        // a shrunk file starts over
+        try (FileOutputStream out = new FileOutputStream(log)) {
+            out.write("one two two\n".getBytes(StandardCharsets.UTF_8));
+        }
+        tail.update();
+        System.out.println("after truncation: size " + tail.wordMap().size() + ", two = "
+                           + tail.wordMap().find("two") + ", top " + tail.top()[0].key); // 2, 2, two
+
+        // update time against file size; the body of the book is repeated
+        // (without its END marker) until the file is 64 MB
+        byte[] body = Arrays.copyOfRange(book, 0, endMarker(book));
+        File growing = File.createTempFile("tail", ".txt");
+        growing.deleteOnExit();
+        TailCounter follow = new TailCounter(growing, "probe", HashStrategy.MIXED, 10);
+        System.out.printf("%10s %14s %14s%n", "file MB", "update ms", "recount ms");
+        try (FileOutputStream out = new FileOutputStream(growing)) {
+            long size = 0;
+            int at = 0;
+            for (long report = 1 << 20; report <= 64L << 20; report *= 4) {
+                while (size < report) {
+                    int n = Math.min(1 << 16, body.length - at);
+                    out.write(body, at, n);
+                    at = (at + n) % body.length;
+                    size += n;
+                    if (size < report) follow.update();
+                }
+                long start = System.nanoTime();
+                follow.update();
+                double update = (System.nanoTime() - start) / 1e6;
+
+                start = System.nanoTime();
+                TailCounter recount = new TailCounter(growing, "probe", HashStrategy.MIXED, 10);
+                recount.update();
+                double full = (System.nanoTime() - start) / 1e6;
+                System.out.printf("%10d %14.3f %14.3f%n", size >> 20, update, full);
+            }
+        }
+        System.out.println("Done");
+    }
+
+    /**
+     * @return True if tail's counts and top 10 are those of book[0..length)
+     */
+    private static boolean sameAsRecount(TailCounter tail, byte[] book, int length) throws IOException {
+        WordTokenizer words = new WordTokenizer(new InputStreamReader(
+            new ByteArrayInputStream(book, 0, length), StandardCharsets.UTF_8));
+        ObjectHashMap<String, Integer> exact = new ObjectHashMap<>(.9);
+        while (words.next()) {
+            exact.increment(words.wordChars(), 0, words.wordLength(), 1);
+        }
+
+        AbstractHashMap<String, Integer> counted = tail.wordMap();
+        boolean same = exact.size() == counted.size();
+        EntryCursor<String, Integer> e = exact.cursor();
+        while (same && e.next()) {
+            same = e.value().equals(counted.find(e.key()));
+        }
+
+        Entry<String, Integer>[] top = TopK.select(exact.cursor(), 10);
+        same &= top.length == tail.top().length;
+        for (int i = 0; same && i < top.length; i++) {
+            same = top[i].key.equals(tail.top()[i].key) && top[i].value.equals(tail.top()[i].value);
+        }
+        return same;
+    }
+
+    /**
+     * @return the offset of the book's END marker line (or its length)
+     */
+    private static int endMarker(byte[] book) {
+        String text = new String(book, StandardCharsets.ISO_8859_1).toLowerCase();
+        for (String marker : WordTokenizer.END_MARKERS) {
+            int at = text.indexOf(marker);
+            if (at >= 0) return text.lastIndexOf('\n', at) + 1;
+        }
+        return book.length;
+    }
+}
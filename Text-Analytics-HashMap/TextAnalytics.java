@@ -6,85 +6,161 @@
  */
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 public class TextAnalytics {
 
+    private static final String USAGE = "Usage: java TextAnalytics <book.txt|directory>"
+        + " [--map=chain|chain-inc|probe|offheap|concurrent|approx[:epsilon,delta,counters]]"
+        + " [--threads=N] [--top=K] [--queries=file|- [--out=file]]"
+        + " [--index=file] [--hash=mixed|modulo] [--bucket-stats]"
+        + " [--stats=file.json] [--rank-out=file.csv|-] [--ngrams=2,3]"
+        + " [--normalize=stop|stop:file|stem,...] [--stage-times]"
+        + " [--follow [--poll=ms]]";
+
     public static void main(String[] args) {
         try {
 
             // Check if any command-line argument is provided
             if (args.length == 0) {
-                System.out.println("Usage: java TextAnalytics <book.txt> ");
+                System.out.println(USAGE);
                 return; 
             }
 
             String fileName = args[0];
+            String mapKind = option(args, "map", "chain");
+            int threads = Integer.parseInt(option(args, "threads", "0"));
+            int topK = Integer.parseInt(option(args, "top", "5"));
+            HashStrategy hashing = HashStrategy.forName(option(args, "hash", "mixed"));
+            String statsFile = option(args, "stats", null);
+            int[] ngramSizes = parseSizes(option(args, "ngrams", null));
             File inputFile = new File(fileName);
-            
-            Scanner scan = new Scanner(inputFile);
-
-            // Skip lines prior to the start of the book 
-            boolean hasStart = false; 
-            while (scan.hasNextLine()) {
-                String line = scan.nextLine().toLowerCase();
 
-                // Strict Gutenberg start marker
-                if (line.contains("*** start of this project gutenberg ebook")) {
-                    hasStart = true; 
-                    break;
-                } 
-            }
-            
-            if (!hasStart){
-                System.out.println("Invalid format. Missing proper Project Gutenberg START marker.");
-                scan.close();
+            // a growing file: count it, then keep counting what is appended
+            if (flag(args, "follow")) {
+                follow(new TailCounter(inputFile, mapKind, hashing, topK),
+                       Long.parseLong(option(args, "poll", "1000")));
                 return;
             }
 
-            // Create a chaining HashMap to store word-occurence pairs
-            ObjectHashMap wordMap = new ObjectHashMap(.9);
-            // O(n): reading the entire book and touching each word once (n = number of words)
-            while (scan.hasNextLine()) {
-                String line = scan.nextLine().toLowerCase();
+            // stop-word filter and stemmer, run by the tokenizer on every word
+            String normalize = option(args, "normalize", null);
+            NormalizerChain normalizer = normalize == null ? null : NormalizerChain.parse(normalize);
+            boolean stageTimes = flag(args, "stage-times");
+            if (normalizer != null && stageTimes) {
+                normalizer.enableTiming();
+            }
 
-                // Strict Gutenberg END marker
-                if (line.contains("*** end of this project gutenberg ebook")){
-                    break; 
-                }
+            // A saved index of this book answers queries without re-reading it
+            // (it holds plain words, and n-grams need the book, so --normalize
+            // and --ngrams always read it)
+            String indexFile = option(args, "index", null);
+            AbstractHashMap<String, Integer> wordMap = null;
+            NGramCounter ngrams = null;
+            if (inputFile.isDirectory()) {
+                // a corpus: one worker per book, merged into an inverted index
+                // (--index, --ngrams and --normalize only apply to a single book)
+                int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+                CorpusIndex corpus = CorpusIndex.build(inputFile, mapKind, hashing, workers);
+                System.out.println("Indexed " + corpus.documentCount() + " documents, " + corpus.size()
+                                   + " words, " + corpus.postingBytes() + " bytes of postings.");
+                wordMap = corpus;
+                indexFile = null;
+                ngramSizes = null;
+                normalizer = null;
+            } else if (indexFile != null && ngramSizes == null && normalizer == null) {
+                // null (recount and rewrite) if missing, stale or damaged
+                wordMap = WordIndex.open(new File(indexFile), inputFile);
+            }
 
-                // Clean + split
-                String[] wordsInLine = line.replaceAll("[^a-z\\s]", "").split("\\s+");
-
-                /* 
-                 * O(n) across entire file: each word is processed once.
-                 * put() is O(1) average; resize() is O(n) but rare.
-                 */
-                for (String word : wordsInLine) {
-                    if (!word.isEmpty()) {
-                        if (wordMap.containsKey(word)) {
-                            Integer newValue = (Integer) wordMap.find(word) + 1;
-                            wordMap.put(word, newValue);
-                        } else {    
-                            wordMap.put(word, 1);
-                        }
+            // Otherwise create a HashMap to store word-occurence pairs
+            if (wordMap == null) {
+                long countStart = System.nanoTime();
+                if (ngramSizes != null) {
+                    // words and n-grams in one sequential pass (--threads is ignored)
+                    wordMap = newWordMap(mapKind, hashing);
+                    if (statsFile != null) {
+                        wordMap.enableStats();
+                    }
+                    ngrams = new NGramCounter(ngramSizes);
+                    if (!ngrams.countBook(inputFile, wordMap, normalizer)) {
+                        wordMap = null;
+                    }
+                } else if (threads > 0) {
+                    // memory-mapped, one map per chunk, merged at the end
+                    // (--stats then only covers merging and queries)
+                    wordMap = ParallelWordCounter.count(inputFile, mapKind, hashing, threads, normalizer);
+                } else {
+                    wordMap = newWordMap(mapKind, hashing);
+                    if (statsFile != null) {
+                        wordMap.enableStats();
+                    }
+                    if (!countWords(inputFile, wordMap, normalizer)) {
+                        wordMap = null;
                     }
                 }
+
+                // Strict Gutenberg start marker
+                if (wordMap == null){
+                    System.out.println("Invalid format. Missing proper Project Gutenberg START marker.");
+                    return;
+                }
+                if (stageTimes) {
+                    printStageTimes(normalizer, System.nanoTime() - countStart, threads > 0 && ngramSizes == null);
+                }
+                // an approximate map only holds its heavy hitters, not every word
+                if (indexFile != null && normalizer == null && !(wordMap instanceof ApproximateCounter)) {
+                    WordIndex.save(wordMap, inputFile, new File(indexFile));
+                }
             }
-    
-            // O(n): getEntries() collects every (word, count) pair into one array
-            Entry[] allWords = wordMap.getEntries();
 
-            // O(n^2): insertion sort (worst-case pairwise shifting)
-            insertionSort(allWords);
+            if (flag(args, "bucket-stats")) {
+                printBucketStats(wordMap);
+            }
+            if (statsFile != null) {
+                wordMap.enableStats();
+            }
 
-            // Top 5 frequent words
-            System.out.println("Top 5 Most Frequent Words");
-            for (int i = 0; i < 5 && i < allWords.length; i++){
-                Entry entry = allWords[i];
-                System.out.println((i + 1) + ".) '" + (String) entry.key + "'   " + entry.value + " uses.");
+            // every word, ranked by count, as CSV
+            String rankFile = option(args, "rank-out", null);
+            if (rankFile != null) {
+                writeRanking(wordMap, rankFile);
+            }
+
+            // batch mode: answer a file (or stdin) of queries as TSV, no prompts
+            String queryFile = option(args, "queries", null);
+            if (queryFile != null) {
+                runBatch(wordMap, normalizer, queryFile, option(args, "out", "-"));
+                writeStats(wordMap, statsFile);
+                return;
+            }
+    
+            // O(n log K): bounded heap fed straight from the map's table,
+            // instead of copying every (word, count) pair and sorting them
+            Entry<String, Integer>[] topWords = TopK.select(wordMap.cursor(), topK);
+
+            // Top K frequent words
+            printTop(topWords, topK);
+            if (wordMap instanceof ApproximateCounter) {
+                ApproximateCounter approx = (ApproximateCounter) wordMap;
+                System.out.printf("(approximate: listed counts are at most %d too high, queries at most %.0f"
+                                  + " with probability %.4f)%n", approx.heavyHitterError(),
+                                  approx.sketchErrorBound(), 1 - approx.sketch().delta());
             }
             System.out.println();
+
+            // Top K n-grams of each requested size
+            if (ngrams != null) {
+                for (int n : ngramSizes) {
+                    Entry<String, Integer>[] topGrams = ngrams.top(n, topK);
+                    System.out.println("Top " + topK + " Most Frequent " + n + "-grams");
+                    for (int i = 0; i < topGrams.length; i++) {
+                        System.out.println((i + 1) + ".) '" + topGrams[i].key + "'   " + topGrams[i].value + " uses.");
+                    }
+                    System.out.println();
+                }
+            }
                 
             // user interaction
             // O(1): hashmap lookup for each user query
@@ -94,35 +170,405 @@ public class TextAnalytics {
 
             while (!command.equals("q")) {
 
-                if (!wordMap.containsKey(command)) {
-                    System.out.println("The word '" + command + "' is not present.");
+                // the query is normalized like the text: a stop word is never
+                // counted, and an inflected form finds its stem
+                String key = normalizer == null ? command : normalizer.apply(command);
+                String word = key == null || key.equals(command) ? "'" + command + "'"
+                                                                 : "'" + command + "' (as '" + key + "')";
+                Integer count = key == null ? null : wordMap.find(key); // null if absent
+                if (key == null) {
+                    System.out.println("The word " + word + " is not counted (--normalize=" + normalizer.name() + ").");
+                } else if (count == null) {
+                    System.out.println("The word " + word + " is not present.");
+                } else if (wordMap instanceof CorpusIndex) {
+                    CorpusIndex corpus = (CorpusIndex) wordMap;
+                    System.out.println("The word " + word + " occurs " + count + " times in "
+                                       + corpus.documentFrequency(key) + " of "
+                                       + corpus.documentCount() + " documents.");
+                    printPostings(corpus, key, 10);
                 } else {
-                    System.out.println("The word '" + command + "' occurs " + wordMap.find(command) + " times.");
+                    System.out.println("The word " + word + " occurs " + count + " times.");
                 }
 
                 System.out.print("Type a word or type 'q' to quit: ");
                 command = input.nextLine().trim().toLowerCase();
             }
 
-            scan.close();
             input.close();    
+            writeStats(wordMap, statsFile);
 
         } catch (FileNotFoundException err) {
             System.out.println("File not found");
+        } catch (IOException err) {
+            System.out.println("Could not read file: " + err.getMessage());
+        } catch (IllegalArgumentException err) {
+            // a bad option value (NumberFormatException included), e.g. --top=ten or --hash=md5
+            System.out.println("Invalid argument: " + err.getMessage());
+            System.out.println(USAGE);
+        }
+    }
+
+    /*
+     * Follow mode: polls the file every pollMillis ms and prints the top K
+     * each time lines were appended, with the update time on stderr.
+     * Runs until interrupted, or until an END marker line is counted.
+     */
+    public static void follow(TailCounter tail, long pollMillis) throws IOException {
+        while (true) {
+            long start = System.nanoTime();
+            long before = tail.offset();
+            long words = tail.update();
+
+            if (words > 0) {
+                System.err.printf("+%d bytes, %d words in %.3f ms (%d bytes counted)%n",
+                                  tail.offset() - before, words, (System.nanoTime() - start) / 1e6,
+                                  tail.offset());
+                printTop(tail.top(), tail.top().length);
+                System.out.println();
+            }
+            if (tail.ended()) {
+                return;
+            }
+
+            try {
+                Thread.sleep(pollMillis);
+            } catch (InterruptedException err) {
+                return;
+            }
+        }
+    }
+
+    /*
+     * Prints a top-K listing, most frequent first.
+     */
+    public static void printTop(Entry<String, Integer>[] topWords, int topK) {
+        System.out.println("Top " + topK + " Most Frequent Words");
+        for (int i = 0; i < topWords.length; i++){
+            Entry<String, Integer> entry = topWords[i];
+            System.out.println((i + 1) + ".) '" + entry.key + "'   " + entry.value + " uses.");
+        }
+    }
+
+    /*
+     * Batch query mode: reads one word per line from queryFile ("-" for stdin)
+     * and writes "word<TAB>count" lines (count 0 if absent) to outFile ("-" for
+     * stdout). One find() per query; throughput goes to stderr.
+     * For a corpus each line also gets the word's document frequency.
+     */
+    public static void runBatch(AbstractHashMap<String, Integer> wordMap, String queryFile, String outFile)
+        throws IOException {
+        runBatch(wordMap, null, queryFile, outFile);
+    }
+
+    /*
+     * Batch mode for a map counted with normalizer (null for none): each
+     * query is looked up by its normalized form, and a dropped word is 0.
+     * Files are closed (and the results flushed) even if a query fails;
+     * stdin and stdout are left open.
+     */
+    public static void runBatch(AbstractHashMap<String, Integer> wordMap, NormalizerChain normalizer,
+                                String queryFile, String outFile) throws IOException {
+        InputStream in = queryFile.equals("-") ? unclosable(System.in) : null;
+        OutputStream out = outFile.equals("-") ? unclosable(System.out) : null;
+
+        try (BufferedReader queries = new BufferedReader(new InputStreamReader(
+                 in != null ? in : new FileInputStream(queryFile), StandardCharsets.UTF_8), 1 << 16);
+             BufferedWriter results = new BufferedWriter(new OutputStreamWriter(
+                 out != null ? out : new FileOutputStream(outFile), StandardCharsets.UTF_8), 1 << 16)) {
+
+            CorpusIndex corpus = wordMap instanceof CorpusIndex ? (CorpusIndex) wordMap : null;
+            long start = System.nanoTime();
+            long answered = 0;
+
+            // O(q): one hash lookup per query
+            String line;
+            while ((line = queries.readLine()) != null) {
+                String word = line.trim().toLowerCase();
+                if (word.isEmpty()) continue;
+
+                String key = normalizer == null ? word : normalizer.apply(word);
+                Integer count = key == null ? null : wordMap.find(key);
+                results.write(word);
+                results.write('\t');
+                results.write(count == null ? "0" : count.toString());
+                if (corpus != null) {
+                    results.write('\t');
+                    results.write(Integer.toString(key == null ? 0 : corpus.documentFrequency(key)));
+                }
+                results.newLine();
+                answered++;
+            }
+            results.flush();
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.err.printf("%d queries in %.3f s (%.0f queries/s)%n",
+                              answered, seconds, answered / Math.max(seconds, 1e-9));
+        }
+    }
+
+    /*
+     * System.in seen through a stream whose close() leaves it open.
+     */
+    private static InputStream unclosable(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /*
+     * System.out seen through a stream whose close() only flushes.
+     */
+    private static OutputStream unclosable(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len); // FilterOutputStream would write byte by byte
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+
+    /*
+     * Prints the documents (at most limit) a word occurs in, with counts.
+     */
+    public static void printPostings(CorpusIndex corpus, String word, int limit) {
+        int[][] postings = corpus.postings(word).decode();
+        int shown = Math.min(limit, postings[0].length);
+
+        for (int i = 0; i < shown; i++) {
+            System.out.println("    " + corpus.documentName(postings[0][i]) + ": " + postings[1][i]);
+        }
+        if (shown < postings[0].length) {
+            System.out.println("    ... and " + (postings[0].length - shown) + " more");
+        }
+    }
+
+    /*
+     * Writes the full frequency ranking as "rank,word,count" CSV to outFile
+     * ("-" for stdout). O(n log n) parallel sort; timing goes to stderr.
+     */
+    public static void writeRanking(AbstractHashMap<String, Integer> wordMap, String outFile) throws IOException {
+        try (Writer csv = new OutputStreamWriter(outFile.equals("-") ? unclosable(System.out)
+                                                 : new FileOutputStream(outFile), StandardCharsets.UTF_8)) {
+            long start = System.nanoTime();
+            int words = FrequencyRanking.write(wordMap, csv);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.err.printf("%d words ranked in %.3f s%n", words, seconds);
+        }
+    }
+
+    /*
+     * Prints (to stderr) how many buckets hold 0, 1, 2, ... keys, and the
+     * average number of keys compared by a successful lookup.
+     */
+    public static void printBucketStats(AbstractHashMap<String, Integer> wordMap) {
+        int[] histogram = wordMap.bucketLengthHistogram();
+        if (histogram == null) {
+            System.err.println("Bucket statistics are not available for this map.");
+            return;
+        }
+
+        long comparisons = 0;
+        System.err.println("keys/bucket  buckets");
+        for (int len = 0; len < histogram.length; len++) {
+            System.err.printf("%11d  %7d%n", len, histogram[len]);
+            // the i-th key of a chain takes i comparisons to find
+            comparisons += (long) histogram[len] * len * (len + 1) / 2;
+        }
+        System.err.printf("longest chain %d, average comparisons per hit %.3f%n",
+                          histogram.length - 1, (double) comparisons / Math.max(1, wordMap.size()));
+    }
+
+    /*
+     * Prints (to stderr) where the counting time went: each normalization
+     * stage (timed with one clock read per stage and word), and the rest -
+     * reading, tokenizing and counting. With threads the stage times are
+     * summed over the workers, so only the wall-clock total is added.
+     */
+    public static void printStageTimes(NormalizerChain chain, long totalNanos, boolean parallel) {
+        long stages = 0;
+        System.err.printf("%-12s %10s %10s %10s %8s%n", "stage", "ms", "words in", "words out", "ns/word");
+        for (int i = 0; chain != null && i < chain.stageCount(); i++) {
+            long nanos = chain.stageNanos(i);
+            stages += nanos;
+            System.err.printf("%-12s %10.2f %10d %10d %8.1f%n", chain.stageName(i), nanos / 1e6,
+                              chain.stageWordsIn(i), chain.stageWordsOut(i),
+                              (double) nanos / Math.max(1, chain.stageWordsIn(i)));
+        }
+        if (!parallel) {
+            System.err.printf("%-12s %10.2f%n", "read+count", (totalNanos - stages) / 1e6);
+        }
+        System.err.printf("%-12s %10.2f%n", "total", totalNanos / 1e6);
+    }
+
+    /*
+     * Writes the map's counters as JSON to statsFile (if one was given).
+     */
+    public static void writeStats(AbstractHashMap<String, Integer> wordMap, String statsFile) throws IOException {
+        if (statsFile == null) {
+            return;
+        }
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(statsFile), StandardCharsets.UTF_8)) {
+            out.write(wordMap.getStats().toJson(wordMap));
+        }
+    }
+
+    /*
+     * Counts the words of a book on the calling thread.
+     * Returns null if the book has no Gutenberg START marker.
+     */
+    public static AbstractHashMap<String, Integer> countWords(File inputFile, String mapKind) throws IOException {
+        return countWords(inputFile, mapKind, HashStrategy.MIXED);
+    }
+
+    public static AbstractHashMap<String, Integer> countWords(File inputFile, String mapKind, HashStrategy hashing)
+        throws IOException {
+        AbstractHashMap<String, Integer> wordMap = newWordMap(mapKind, hashing);
+        return countWords(inputFile, wordMap) ? wordMap : null;
+    }
+
+    /*
+     * Counts the words of a book into wordMap.
+     * Returns false if the book has no Gutenberg START marker.
+     */
+    public static boolean countWords(File inputFile, AbstractHashMap<String, Integer> wordMap) throws IOException {
+        return countWords(inputFile, wordMap, null);
+    }
+
+    /*
+     * countWords() with every word run through normalizer (null for none)
+     * before it is counted.
+     */
+    public static boolean countWords(File inputFile, AbstractHashMap<String, Integer> wordMap,
+                                     WordNormalizer normalizer) throws IOException {
+        WordTokenizer words = openBook(inputFile);
+        words.setNormalizer(normalizer);
+
+        // Skip lines prior to the start of the book 
+        if (!words.skipToStart()) {
+            words.close();
+            return false;
+        }
+
+        /* 
+         * O(n): reading the entire book and touching each word once (n = number of words),
+         * up to the Gutenberg END marker.
+         * increment() is O(1) average; resize() is O(n) but rare.
+         */
+        while (words.next()) {
+            // probes by chars: no String is made for words already counted
+            wordMap.increment(words.wordChars(), 0, words.wordLength(), 1);
         }
+        words.close();
+        return true;
+    }
+
+    /*
+     * Opens a book as a stream of lowercase words (Gutenberg books are UTF-8).
+     */
+    public static WordTokenizer openBook(File inputFile) throws FileNotFoundException {
+        return new WordTokenizer(new InputStreamReader(new FileInputStream(inputFile),
+                                                       StandardCharsets.UTF_8));
     }
     
+    /*
+     * Picks the map implementation named on the command line.
+     * "chain" is the LinkedList-bucket ObjectHashMap, "chain-inc" the same
+     * map with incremental resizing, "probe" the open-addressing
+     * IntCountHashMap with primitive counts, "offheap" the OffHeapHashMap
+     * with keys and counts in direct buffers, "concurrent" the thread-safe
+     * ConcurrentObjectHashMap, "approx" (or "approx:epsilon,delta,counters")
+     * the fixed-memory ApproximateCounter.
+     */
+    public static AbstractHashMap<String, Integer> newWordMap(String kind) {
+        if (kind.equals("approx") || kind.startsWith("approx:")) {
+            return ApproximateCounter.fromParams(kind.substring(Math.min(kind.length(), 7)));
+        }
+        if (kind.equals("probe")) {
+            return new IntCountHashMap<>(.5);
+        }
+        if (kind.equals("offheap")) {
+            return new OffHeapHashMap(.5);
+        }
+        if (kind.equals("chain-inc")) {
+            return new ObjectHashMap<>(.9, true);
+        }
+        if (kind.equals("concurrent")) {
+            return new ConcurrentObjectHashMap<>(.9);
+        }
+        if (!kind.equals("chain")) {
+            throw new IllegalArgumentException("Unknown map kind: " + kind);
+        }
+        return new ObjectHashMap<>(.9);
+    }
+
+    public static AbstractHashMap<String, Integer> newWordMap(String kind, HashStrategy hashing) {
+        AbstractHashMap<String, Integer> wordMap = newWordMap(kind);
+        wordMap.setHashStrategy(hashing);
+        return wordMap;
+    }
+
+    /*
+     * Returns the value of a "--name=value" command-line option,
+     * or def if the option was not given.
+     */
+    public static String option(String[] args, String name, String def) {
+        String prefix = "--" + name + "=";
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith(prefix)) {
+                return args[i].substring(prefix.length());
+            }
+        }
+        return def;
+    }
+
+    /*
+     * Parses a comma-separated list of n-gram sizes such as "2,3";
+     * returns null for a null list.
+     */
+    public static int[] parseSizes(String list) {
+        if (list == null) {
+            return null;
+        }
+        String[] parts = list.split(",");
+        int[] sizes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            sizes[i] = Integer.parseInt(parts[i].trim());
+        }
+        return sizes;
+    }
+
+    /*
+     * Returns true if the "--name" flag was given on the command line.
+     */
+    public static boolean flag(String[] args, String name) {
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--" + name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /*
      * A reverse insertion method that sorts entries from largest to smallest values.
      * O(n^2) worst case because each element may shift many positions.
+     * Superseded by TopK.select for the top-K listing and FrequencyRanking
+     * for the full ranking; kept for comparison.
      */
-    public static void insertionSort(Entry[] arr) {
+    public static void insertionSort(Entry<?, Integer>[] arr) {
         int i = 1;
         while (i < arr.length) {
-            Entry currEntry = arr[i]; 
+            Entry<?, Integer> currEntry = arr[i]; 
             int j = i - 1;
 
-            while (j >= 0 && (int) arr[j].value < (int) currEntry.value) {
+            while (j >= 0 && arr[j].value < currEntry.value) {
                 arr[j+1] = arr[j];
                 j--;
             }
@@ -0,0 +1,124 @@
+/**
+ * TopK.java
+ * Picks the k most frequent entries without sorting the whole vocabulary.
+ *
+ * A bounded min-heap holds the best k entries seen so far; its root is the
+ * weakest of them, so each further entry costs one comparison unless it
+ * beats the root. O(n log k) instead of the O(n^2) insertionSort.
+ *
+ * Ties on count are broken by word in alphabetical order, so the result
+ * does not depend on the map's bucket order.
+ */
+
+import java.util.Arrays;
+
+public class TopK {
+
+    /**
+     * @param entries (word, Integer count) pairs, e.g. from getEntries()
+     * @param k how many to keep
+     * @return the min(k, entries.length) best entries, most frequent first
+     */
+    public static <K, V> Entry<K, V>[] select(Entry<K, V>[] entries, int k) {
+        return select(EntryCursor.over(entries), Math.min(k, entries.length));
+    }
+
+    /**
+     * Same as select(entries, k), reading a map in place: an entry is only
+     * asked for (and, for a map of primitive counts, created) when it makes
+     * it into the heap.
+     * @param entries a cursor over (word, Integer count) pairs, e.g. map.cursor()
+     * @param k how many to keep
+     * @return up to k best entries, most frequent first
+     */
+    public static <K, V> Entry<K, V>[] select(EntryCursor<K, V> entries, int k) {
+        int size = Math.max(0, k);
+        Entry<K, V>[] heap = Entry.newArray(Math.min(size, 16));
+        int n = 0;
+
+        // O(n log k): every entry's count is compared against the root's
+        // (its key only on a tie), at most one sift-down per entry that
+        // makes it into the heap
+        while (entries.next()) {
+            if (n < size) {
+                if (n == heap.length) {
+                    heap = Arrays.copyOf(heap, (int) Math.min(size, 2L * n));
+                }
+                heap[n] = entries.entry();
+                siftUp(heap, n++);
+            } else if (size > 0 && compare(entries, heap[0]) < 0) {
+                heap[0] = entries.entry();
+                siftDown(heap, 0, n);
+            }
+        }
+        if (n < heap.length) {
+            heap = Arrays.copyOf(heap, n);
+        }
+
+        // O(k log k): pop the weakest into the back to get best-first order
+        for (int last = n - 1; last > 0; last--) {
+            Entry<K, V> weakest = heap[0];
+            heap[0] = heap[last];
+            heap[last] = weakest;
+            siftDown(heap, 0, last);
+        }
+        return heap;
+    }
+
+    /**
+     * Ranking order: higher count first, then alphabetical.
+     * @return negative if a ranks before b
+     */
+    public static int compare(Entry<?, ?> a, Entry<?, ?> b) {
+        int ca = (Integer) a.value;
+        int cb = (Integer) b.value;
+
+        if (ca != cb) {
+            return ca > cb ? -1 : 1;
+        }
+        return a.key.toString().compareTo(b.key.toString());
+    }
+
+    /**
+     * compare() for a cursor's current entry. Its key() is only called
+     * when the counts tie, since a cursor may build the key on each call
+     * (NGramCounter does).
+     */
+    private static int compare(EntryCursor<?, ?> a, Entry<?, ?> b) {
+        int ca = a.count();
+        int cb = (Integer) b.value;
+
+        if (ca != cb) {
+            return ca > cb ? -1 : 1;
+        }
+        return a.key().toString().compareTo(b.key.toString());
+    }
+
+    // Helper methods (heap root = entry that ranks last)
+
+    private static void siftUp(Entry<?, ?>[] heap, int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (compare(heap[i], heap[parent]) <= 0) break;
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(Entry<?, ?>[] heap, int i, int n) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) break;
+            if (child + 1 < n && compare(heap[child + 1], heap[child]) > 0) child++;
+            if (compare(heap[child], heap[i]) <= 0) break;
+            swap(heap, i, child);
+            i = child;
+        }
+    }
+
+    private static <T> void swap(T[] heap, int i, int j) {
+        T tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * TopKBenchmark.java
+ * Compares TopK.select against TextAnalytics.insertionSort on the
+ * bundled books.
+ *
+ * Usage: java TopKBenchmark [book.txt ...]
+ * (defaults to pg84.txt and pride_and_prejudice.txt)
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+public class TopKBenchmark {
+
+    private static final int RUNS = 20;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            args = new String[] {"pg84.txt", "pride_and_prejudice.txt"};
+        }
+
+        for (String book : args) {
+            AbstractHashMap<String, Integer> wordMap = TextAnalytics.countWords(new File(book), "probe");
+            if (wordMap == null) {
+                System.out.println(book + ": missing Project Gutenberg START marker");
+                continue;
+            }
+            Entry<String, Integer>[] entries = wordMap.getEntries();
+            System.out.println(book + " (" + entries.length + " distinct words)");
+
+            long sortTime = bestOf(entries, 0);
+            System.out.printf("  insertionSort          %10.3f ms%n", sortTime / 1e6);
+            for (int k : new int[] {5, 100, 1000}) {
+                System.out.printf("  TopK.select k=%-8d %10.3f ms%n", k, bestOf(entries, k) / 1e6);
+            }
+
+            // both must agree on the counts of the top entries
+            Entry<String, Integer>[] sorted = entries.clone();
+            TextAnalytics.insertionSort(sorted);
+            Entry<String, Integer>[] top = TopK.select(entries, 100);
+            boolean same = true;
+            for (int i = 0; i < top.length; i++) {
+                if (!top[i].value.equals(sorted[i].value)) same = false;
+            }
+            System.out.println("  top 100 counts match insertionSort: " + same);
+        }
+    }
+
+    /**
+     * Best time over RUNS runs on a fresh copy of entries:
+     * insertionSort if k == 0, otherwise TopK.select(copy, k).
+     */
+    private static long bestOf(Entry<String, Integer>[] entries, int k) {
+        long best = Long.MAX_VALUE;
+
+        for (int run = 0; run < RUNS; run++) {
+            Entry<String, Integer>[] copy = entries.clone();
+            long start = System.nanoTime();
+            if (k == 0) {
+                TextAnalytics.insertionSort(copy);
+            } else {
+                TopK.select(copy, k);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,101 @@
+// TopKTest.java
+// Checks TopK.select against a full sort (higher count first, then
+// alphabetical) for entries with many tied counts and for k = 0, 1, the
+// vocabulary size and more. Then takes the top 5 bigrams of a book through
+// a cursor that counts key() calls: NGramCounter builds the bigram text on
+// every key(), so select must only ask for the key of a bigram whose count
+// ties the heap's root, a small fraction of all bigrams.
+// Usage: java TopKTest [book.txt]
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class TopKTest {
+    public static void main(String[] args) throws IOException {
+        // 500 words with counts 0..9, so every count is shared by ~50 words
+        Entry<String, Integer>[] entries = Entry.newArray(500);
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = new Entry<>("w" + (i * 7919 % 1000), i * 31 % 10);
+        }
+        Entry<String, Integer>[] sorted = entries.clone();
+        Arrays.sort(sorted, TopK::compare);
+
+        boolean same = true;
+        for (int k : new int[] {0, 1, 5, 49, 50, 51, 499, 500, 600}) {
+            Entry<String, Integer>[] top = TopK.select(entries, k);
+            same &= sameEntries(top, Arrays.copyOf(sorted, Math.min(k, sorted.length)));
+            same &= sameEntries(TopK.select(EntryCursor.over(entries), k), top);
+        }
+        System.out.println("same as a full sort for k = 0 to 600: " + same); // true
+
+        File book = new File(args.length > 0 ? args[0] : "pg84.txt");
+        NGramCounter ngrams = new NGramCounter(2);
+        ngrams.countBook(book, new ObjectHashMap<>(.5));
+
+        CountingCursor bigrams = new CountingCursor(ngrams.cursor(2));
+        Entry<String, Integer>[] top = TopK.select(bigrams, 5);
+
+        // reading every key would be one key() per bigram; only bigrams
+        // tied with the root's count should need theirs
+        System.out.println(bigrams.entries + " bigrams, " + bigrams.keys + " key() calls, under 1%: "
+                           + (bigrams.keys * 100 < bigrams.entries)); // true
+        System.out.println("same top 5 as NGramCounter.top: "
+                           + sameEntries(top, ngrams.top(2, 5))); // true
+        System.out.println("Done");
+    }
+
+    /**
+     * @return True if a and b hold the same (key, value) pairs in the same order
+     */
+    private static boolean sameEntries(Entry<?, ?>[] a, Entry<?, ?>[] b) {
+        if (a.length != b.length) return false;
+        for (int i = 0; i < a.length; i++) {
+            if (!a[i].key.equals(b[i].key) || !a[i].value.equals(b[i].value)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Passes a cursor through, counting entries and key() calls
+     * (entry() is not counted: it is only asked for by entries that
+     * make it into the heap).
+     */
+    private static class CountingCursor extends EntryCursor<String, Integer> {
+        private final EntryCursor<String, Integer> cursor;
+        int entries;
+        int keys;
+
+        CountingCursor(EntryCursor<String, Integer> cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean next() {
+            boolean more = cursor.next();
+            if (more) entries++;
+            return more;
+        }
+
+        @Override
+        public String key() {
+            keys++;
+            return cursor.key();
+        }
+
+        @Override
+        public Integer value() {
+            return cursor.value();
+        }
+
+        @Override
+        public int count() {
+            return cursor.count();
+        }
+
+        @Override
+        public Entry<String, Integer> entry() {
+            return cursor.entry();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ * WordIndex.java
+ * A read-only word-count map backed by a memory-mapped index file.
+ *
+ * The file is a sorted string table, so a saved map can answer find()
+ * straight from disk without re-reading the book:
+ *
+ *    int   magic ("WIDX"), int version
+ *    long  length and long lastModified of the book it was built from
+ *    int   n, the number of words
+ *    int[] n + 1 offsets of each word's UTF-8 bytes in the key area
+ *    int[] n counts
+ *    byte[] key area: the words' UTF-8 bytes, in unsigned byte order
+ *
+ * Lookups are a binary search over the mapped bytes: O(log n), and
+ * nothing is built up front, so opening an index takes milliseconds.
+ * The index is only a cache: open() returns null for a missing, stale,
+ * truncated or corrupt file, and the caller recounts the book.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class WordIndex extends AbstractHashMap<String, Integer> {
+
+    private static final int MAGIC = 0x57494458;
+    private static final int VERSION = 1;
+    private static final int HEADER = 4 + 4 + 8 + 8 + 4;
+
+    private final MappedByteBuffer data;
+    private final int offsetsAt;
+    private final int countsAt;
+    private final int keysAt;
+    private final long sourceLength;
+    private final long sourceModified;
+
+    /**
+     * Maps an index file written by save(), checking the header and that
+     * the offsets fit the file's length. O(n) for the offsets.
+     * @throws IOException if the file cannot be read or is not a whole index
+     */
+    public WordIndex(File indexFile) throws IOException {
+        super(1);
+
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (data.limit() < HEADER || data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+            throw new IOException("Not a word index: " + indexFile);
+        }
+
+        sourceLength = data.getLong(8);
+        sourceModified = data.getLong(16);
+        numKeys = data.getInt(24);
+        capacity = numKeys;
+
+        long keyArea = data.limit() - (HEADER + 8L * numKeys + 4);
+        if (numKeys < 0 || keyArea < 0) {
+            throw new IOException("Truncated word index: " + indexFile);
+        }
+        offsetsAt = HEADER;
+        countsAt = offsetsAt + 4 * (numKeys + 1);
+        keysAt = countsAt + 4 * numKeys;
+
+        // offsets run from 0 up to the end of the file, never backwards
+        int previous = 0;
+        for (int i = 0; i <= numKeys; i++) {
+            int offset = offset(i);
+            if (offset < previous || (i == 0 && offset != 0)) {
+                throw new IOException("Corrupt word index: " + indexFile);
+            }
+            previous = offset;
+        }
+        if (previous != keyArea) {
+            throw new IOException("Truncated word index: " + indexFile);
+        }
+    }
+
+    /**
+     * @return the index saved for book, or null if there is none, it was
+     *         built from another version of the book, or it cannot be read
+     *         (a damaged cache only costs a recount)
+     */
+    public static WordIndex open(File indexFile, File book) {
+        if (!indexFile.exists()) {
+            return null;
+        }
+        try {
+            WordIndex index = new WordIndex(indexFile);
+            return index.isCurrentFor(book) ? index : null;
+        } catch (IOException e) {
+            System.err.println("Ignoring word index: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the contents of a word map (String keys, Integer counts) as an
+     * index file for the given book. O(n log n) for sorting the words.
+     */
+    public static void save(AbstractHashMap<String, Integer> wordMap, File book, File indexFile) throws IOException {
+        int n = wordMap.size();
+        byte[][] keys = new byte[n][];
+        int[] counts = new int[n];
+
+        EntryCursor<String, Integer> words = wordMap.cursor();
+        for (int i = 0; words.next(); i++) {
+            keys[i] = words.key().getBytes(StandardCharsets.UTF_8);
+            counts[i] = words.count();
+        }
+
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> compareBytes(keys[a], keys[b]));
+
+        try (DataOutputStream out = new DataOutputStream(
+                 new BufferedOutputStream(new FileOutputStream(indexFile), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(book.length());
+            out.writeLong(book.lastModified());
+            out.writeInt(n);
+
+            int offset = 0;
+            for (Integer i : order) {
+                out.writeInt(offset);
+                offset += keys[i].length;
+            }
+            out.writeInt(offset);
+
+            for (Integer i : order) {
+                out.writeInt(counts[i]);
+            }
+            for (Integer i : order) {
+                out.write(keys[i]);
+            }
+        }
+    }
+
+    /**
+     * @return true if this index was built from the book as it is now
+     *         (same length and modification time)
+     */
+    public boolean isCurrentFor(File book) {
+        return book.length() == sourceLength && book.lastModified() == sourceModified;
+    }
+
+    /**
+     * O(log n) binary search over the mapped words.
+     * @return Integer count, or null if the word is not in the index
+     */
+    @Override
+    public Integer find(Object key) {
+        int i = indexOf(key);
+
+        if (i < 0) {
+            return null;
+        }
+        return data.getInt(countsAt + 4 * i);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * O(n): decodes every word. Entries come out in sorted order.
+     */
+    @Override
+    public Entry<String, Integer>[] getEntries() {
+        Entry<String, Integer>[] arr = Entry.newArray(numKeys);
+
+        for (int i = 0; i < numKeys; i++) {
+            int from = offset(i);
+            byte[] bytes = new byte[offset(i + 1) - from];
+            for (int k = 0; k < bytes.length; k++) {
+                bytes[k] = data.get(keysAt + from + k);
+            }
+            arr[i] = new Entry<>(new String(bytes, StandardCharsets.UTF_8), data.getInt(countsAt + 4 * i));
+        }
+        return arr;
+    }
+
+    /**
+     * The index is read-only.
+     */
+    @Override
+    public void put(String key, Integer value) {
+        throw new UnsupportedOperationException("WordIndex is read-only");
+    }
+
+    @Override
+    public int increment(String key, int delta) {
+        throw new UnsupportedOperationException("WordIndex is read-only");
+    }
+
+    @Override
+    protected void resize() {
+        throw new UnsupportedOperationException("WordIndex is read-only");
+    }
+
+    // Helper methods
+
+    private int offset(int i) {
+        return data.getInt(offsetsAt + 4 * i);
+    }
+
+    private int indexOf(Object key) {
+        byte[] target = key.toString().getBytes(StandardCharsets.UTF_8);
+        int lo = 0;
+        int hi = numKeys - 1;
+
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareAt(mid, target);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares word i of the index with target, as unsigned bytes.
+     */
+    private int compareAt(int i, byte[] target) {
+        int from = keysAt + offset(i);
+        int length = offset(i + 1) - offset(i);
+        int n = Math.min(length, target.length);
+
+        for (int k = 0; k < n; k++) {
+            int cmp = (data.get(from + k) & 0xff) - (target[k] & 0xff);
+            if (cmp != 0) return cmp;
+        }
+        return length - target.length;
+    }
+
+    private static int compareBytes(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+
+        for (int k = 0; k < n; k++) {
+            int cmp = (a[k] & 0xff) - (b[k] & 0xff);
+            if (cmp != 0) return cmp;
+        }
+        return a.length - b.length;
+    }
+}
@@ -0,0 +1,82 @@
+// WordIndexTest.java
+// Saves the counts of a book as a WordIndex, maps it back and checks every
+// word, a missing word and the sorted getEntries() against the map it was
+// saved from. Then checks that open() gives null, without throwing, for an
+// index of another version of the book and for a truncated, empty or
+// overwritten index file, so TextAnalytics recounts instead of failing.
+// Usage: java WordIndexTest [book.txt]
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+public class WordIndexTest {
+    public static void main(String[] args) throws IOException {
+        File book = new File(args.length > 0 ? args[0] : "pride_and_prejudice.txt");
+        File copy = File.createTempFile("book", ".txt");
+        File indexFile = File.createTempFile("book", ".widx");
+        copy.deleteOnExit();
+        indexFile.deleteOnExit();
+        Files.copy(book.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        // round trip
+        AbstractHashMap<String, Integer> counts = TextAnalytics.countWords(copy, "chain");
+        counts.increment("café", 2); // non-ASCII: UTF-8 byte order must match String order
+        WordIndex.save(counts, copy, indexFile);
+        WordIndex index = WordIndex.open(indexFile, copy);
+        boolean same = index != null && index.size() == counts.size();
+        for (Entry<String, Integer> e : counts.getEntries()) {
+            same &= index != null && e.value.equals(index.find(e.key));
+        }
+        System.out.println(counts.size() + " words, all found with the same counts: " + same); // true
+        System.out.println("find(café): " + index.find("café") + ", find(zzzz): " + index.find("zzzz")
+                           + ", containsKey(elizabeth): " + index.containsKey("elizabeth")); // 2, null, true
+
+        Entry<String, Integer>[] sorted = index.getEntries();
+        boolean inOrder = sorted.length == counts.size();
+        for (int i = 1; i < sorted.length; i++) {
+            inOrder &= sorted[i - 1].key.compareTo(sorted[i].key) < 0;
+        }
+        System.out.println("getEntries() in order: " + inOrder); // true
+
+        // another version of the book: touched, then grown
+        copy.setLastModified(copy.lastModified() + 2000);
+        System.out.println("book touched, index opened: " + (WordIndex.open(indexFile, copy) != null)); // false
+        WordIndex.save(counts, copy, indexFile);
+        try (RandomAccessFile out = new RandomAccessFile(copy, "rw")) {
+            out.seek(out.length());
+            out.writeBytes("one more line\n");
+        }
+        System.out.println("book grown, index opened: " + (WordIndex.open(indexFile, copy) != null)); // false
+        System.out.println("no index file, index opened: "
+                           + (WordIndex.open(new File(indexFile.getPath() + ".missing"), copy) != null)); // false
+
+        // damaged index files: each must be refused, not thrown or half read
+        WordIndex.save(counts, copy, indexFile);
+        byte[] good = Files.readAllBytes(indexFile.toPath());
+        System.out.println("rewritten, index opened: " + (WordIndex.open(indexFile, copy) != null)); // true
+        System.out.println("truncated to 0, 20, half, all but 1 byte: " + opens(indexFile, copy, good, 0, -1)
+                           + " " + opens(indexFile, copy, good, 20, -1) + " "
+                           + opens(indexFile, copy, good, good.length / 2, -1) + " "
+                           + opens(indexFile, copy, good, good.length - 1, -1)); // false false false false
+        System.out.println("bad magic, word count, offset: " + opens(indexFile, copy, good, good.length, 0) + " "
+                           + opens(indexFile, copy, good, good.length, 24) + " "
+                           + opens(indexFile, copy, good, good.length, 28 + 4 * 100)); // false false false
+        System.out.println("Done");
+    }
+
+    /**
+     * Writes the first length bytes of good to indexFile, with byte at
+     * (if not -1) overwritten, and tries to open it.
+     * @return True if open() accepted the file
+     */
+    private static boolean opens(File indexFile, File book, byte[] good, int length, int at) throws IOException {
+        byte[] bytes = Arrays.copyOf(good, length);
+        if (at >= 0) bytes[at] ^= 0x40;
+        Files.write(indexFile.toPath(), bytes);
+        return WordIndex.open(indexFile, book) != null;
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * WordNormalizer.java
+ * One stage of the normalization the tokenizer applies to each word
+ * before it is counted (see NormalizerChain).
+ *
+ * A stage works in place on the tokenizer's word buffer, so normalizing
+ * a word allocates nothing. It may shorten the word, or drop it.
+ */
+
+public interface WordNormalizer {
+
+    /**
+     * Normalizes word[0..length) in place.
+     * @return the new length (at most length), or 0 to drop the word
+     */
+    int normalize(char[] word, int length);
+
+    /**
+     * @return the stage's name, as given to NormalizerChain.parse()
+     */
+    String name();
+
+    /**
+     * @return a normalizer for another thread: stages that keep state
+     *         between calls return a fresh instance, the others themselves
+     */
+    default WordNormalizer copy() {
+        return this;
+    }
+}
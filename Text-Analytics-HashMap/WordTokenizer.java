@@ -0,0 +1,246 @@
+/**
+ * WordTokenizer.java
+ * Streams the words of a Gutenberg book out of a Reader.
+ *
+ * Produces exactly the words of the old per-line pipeline
+ * (toLowerCase, replaceAll("[^a-z\\s]", ""), split("\\s+")) without
+ * building a String, regex or array per line: characters are read into
+ * one reusable buffer, case is folded as they are copied into the word
+ * buffer, and anything that is neither a letter nor whitespace is dropped.
+ *
+ * An optional WordNormalizer (see NormalizerChain) runs on each word in
+ * the word buffer before next() returns it; words it drops are skipped.
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+
+public class WordTokenizer {
+
+    // Gutenberg marker lines; older releases say "this", current ones "the"
+    public static final String[] START_MARKERS = {
+        "*** start of this project gutenberg ebook",
+        "*** start of the project gutenberg ebook"
+    };
+    public static final String[] END_MARKERS = {
+        "*** end of this project gutenberg ebook",
+        "*** end of the project gutenberg ebook"
+    };
+
+    private final Reader in;
+    private boolean eof;
+
+    // Unread text is buf[pos..limit); the current line is buf[lineStart..lineEnd)
+    private char[] buf = new char[8192];
+    private int pos;
+    private int limit;
+    private int lineStart;
+    private int lineEnd;
+    private int scan;
+    private boolean finished;
+    private boolean sawEndMarker;
+
+    private char[] word = new char[32];
+    private int wordLength;
+
+    private WordNormalizer normalizer;
+
+    /**
+     * @param in source text; it is read in large blocks, so it does not
+     *           need to be buffered
+     */
+    public WordTokenizer(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * @param normalizer applied to every word from now on (null for none)
+     */
+    public void setNormalizer(WordNormalizer normalizer) {
+        this.normalizer = normalizer;
+    }
+
+    /**
+     * Skips lines up to and including the Gutenberg START marker.
+     * @return false if the text has no START marker
+     */
+    public boolean skipToStart() throws IOException {
+        while (nextLine()) {
+            if (lineContains(START_MARKERS)) {
+                scan = lineEnd; // the marker line itself holds no words
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Advances to the next word. Stops for good at the end of the text or
+     * at a Gutenberg END marker line.
+     * @return true if a word is now available through wordChars()/wordLength()
+     */
+    public boolean next() throws IOException {
+        wordLength = 0;
+
+        while (!finished) {
+            // O(1) per character: each char is looked at once
+            while (scan < lineEnd) {
+                char c = buf[scan++];
+
+                if (c >= 'a' && c <= 'z') {
+                    append(c);
+                } else if (c >= 'A' && c <= 'Z') {
+                    append((char) (c + ('a' - 'A')));
+                } else if (c == ' ' || c == '\t' || c == '\u000B' || c == '\f') {
+                    if (wordLength > 0 && keep()) return true;
+                } else if (c > 127) {
+                    // a few non-ASCII letters (e.g. the Kelvin sign) lowercase into a-z
+                    char lower = Character.toLowerCase(c);
+                    if (lower >= 'a' && lower <= 'z') append(lower);
+                }
+            }
+
+            // end of line is a word boundary too
+            if (wordLength > 0 && keep()) return true;
+
+            if (!nextLine()) {
+                finished = true;
+            } else if (lineContains(END_MARKERS)) {
+                finished = true;
+                sawEndMarker = true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the next word as a String, or null when there are no more
+     */
+    public String nextWord() throws IOException {
+        return next() ? new String(word, 0, wordLength) : null;
+    }
+
+    /**
+     * @return the buffer holding the current word in [0, wordLength());
+     *         overwritten by the next call to next()
+     */
+    public char[] wordChars() {
+        return word;
+    }
+
+    public int wordLength() {
+        return wordLength;
+    }
+
+    /**
+     * @return true once next() has stopped at a Gutenberg END marker line
+     *         (rather than at the end of the input)
+     */
+    public boolean reachedEndMarker() {
+        return sawEndMarker;
+    }
+
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // Helper methods
+
+    /**
+     * Normalizes the finished word.
+     * @return false if the normalizer dropped it (wordLength is then 0)
+     */
+    private boolean keep() {
+        if (normalizer != null) {
+            wordLength = normalizer.normalize(word, wordLength);
+        }
+        return wordLength > 0;
+    }
+
+    private void append(char c) {
+        if (wordLength == word.length) {
+            char[] bigger = new char[word.length * 2];
+            System.arraycopy(word, 0, bigger, 0, wordLength);
+            word = bigger;
+        }
+        word[wordLength++] = c;
+    }
+
+    /**
+     * Makes the next complete line available in buf[lineStart..lineEnd),
+     * reading more input (and compacting or growing the buffer) as needed.
+     * Line terminators are the ones Scanner.nextLine() splits on.
+     * @return false at end of input
+     */
+    private boolean nextLine() throws IOException {
+        int i = pos;
+
+        while (true) {
+            while (i < limit) {
+                char c = buf[i];
+                if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                    setLine(pos, i, i + 1);
+                    return true;
+                }
+                i++;
+            }
+
+            if (eof) {
+                if (pos == limit) return false;
+                setLine(pos, limit, limit); // last line without a terminator
+                return true;
+            }
+
+            // no terminator in the buffer yet: keep the partial line and read more
+            int partial = limit - pos;
+            if (partial == buf.length) {
+                char[] bigger = new char[buf.length * 2];
+                System.arraycopy(buf, pos, bigger, 0, partial);
+                buf = bigger;
+            } else {
+                System.arraycopy(buf, pos, buf, 0, partial);
+            }
+            pos = 0;
+            limit = partial;
+            i = partial;
+
+            int n = in.read(buf, limit, buf.length - limit);
+            if (n < 0) {
+                eof = true;
+            } else {
+                limit += n;
+            }
+        }
+    }
+
+    private void setLine(int start, int end, int next) {
+        lineStart = start;
+        lineEnd = end;
+        scan = start;
+        pos = next;
+    }
+
+    /**
+     * Case-insensitive search of the current line for any of the markers
+     * (all of which are lowercase and start with '*').
+     */
+    private boolean lineContains(String[] markers) {
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (buf[i] != '*') continue;
+
+            for (String marker : markers) {
+                if (matchesAt(i, marker)) return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesAt(int i, String marker) {
+        if (lineEnd - i < marker.length()) return false;
+
+        for (int k = 0; k < marker.length(); k++) {
+            if (Character.toLowerCase(buf[i + k]) != marker.charAt(k)) return false;
+        }
+        return true;
+    }
+}
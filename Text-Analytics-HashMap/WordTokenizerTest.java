@@ -0,0 +1,72 @@
+// WordTokenizerTest.java
+// Counts each book twice: with the original per-line pipeline of
+// TextAnalytics (Scanner lines, toLowerCase, replaceAll("[^a-z\\s]", ""),
+// split("\\s+"), between the START and END markers) and with WordTokenizer,
+// both into a java.util.HashMap, and prints whether they found the same
+// set of words with the same counts.
+// Usage: java WordTokenizerTest [book.txt ...]
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Scanner;
+
+public class WordTokenizerTest {
+    public static void main(String[] args) throws IOException {
+        String[] books = args.length > 0 ? args : new String[] {"pg84.txt", "pride_and_prejudice.txt"};
+
+        for (String book : books) {
+            Map<String, Integer> expected = oldPipeline(new File(book));
+
+            Map<String, Integer> tokenized = new HashMap<>();
+            WordTokenizer tokens = TextAnalytics.openBook(new File(book));
+            boolean started = tokens.skipToStart();
+            for (String word = tokens.nextWord(); word != null; word = tokens.nextWord()) {
+                tokenized.merge(word, 1, Integer::sum);
+            }
+            tokens.close();
+
+            System.out.println(book + ": START found " + started + ", " + expected.size() + " words, same word set: "
+                               + expected.keySet().equals(tokenized.keySet())
+                               + ", same counts: " + expected.equals(tokenized)); // true, true, true
+        }
+        System.out.println("Done");
+    }
+
+    /**
+     * The word counting of the original TextAnalytics.main, reading UTF-8
+     * (with an ASCII default charset its Scanner stops at the first accent)
+     * and taking both marker spellings (the bundled books say "the", the
+     * original only looked for "this").
+     */
+    private static Map<String, Integer> oldPipeline(File book) throws IOException {
+        Map<String, Integer> counts = new HashMap<>();
+        try (Scanner scan = new Scanner(book, "UTF-8")) {
+            while (scan.hasNextLine()) {
+                if (containsAny(scan.nextLine().toLowerCase(), WordTokenizer.START_MARKERS)) {
+                    break;
+                }
+            }
+            while (scan.hasNextLine()) {
+                String line = scan.nextLine().toLowerCase();
+                if (containsAny(line, WordTokenizer.END_MARKERS)) {
+                    break;
+                }
+                for (String word : line.replaceAll("[^a-z\\s]", "").split("\\s+")) {
+                    if (!word.isEmpty()) {
+                        counts.merge(word, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static boolean containsAny(String line, String[] markers) {
+        for (String marker : markers) {
+            if (line.contains(marker)) return true;
+        }
+        return false;
+    }
+}
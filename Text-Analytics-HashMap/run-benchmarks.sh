@@ -0,0 +1,13 @@
+#!/bin/sh
+# Compiles Text-Analytics-HashMap into a temporary directory and runs the
+# benchmarks against the bundled books. Extra arguments go to HashMapBenchmark,
+# e.g. ./run-benchmarks.sh --keys=1000,100000 --loads=.5,.9
+set -e
+cd "$(dirname "$0")"
+out=$(mktemp -d)
+trap 'rm -rf "$out"' EXIT
+
+javac -encoding UTF-8 -nowarn -d "$out" *.java
+java -cp "$out" HashMapBenchmark "$@"
+echo
+java -cp "$out" TopKBenchmark